@@ -31,7 +31,6 @@ import ru.practicum.ewm.request.model.Request;
 import ru.practicum.ewm.request.repository.RequestRepository;
 import ru.practicum.ewm.stat.client.StatClient;
 import ru.practicum.ewm.stat.dto.HitDto;
-import ru.practicum.ewm.stat.dto.StatDto;
 import ru.practicum.ewm.user.model.User;
 import ru.practicum.ewm.user.repository.UserRepository;
 
@@ -41,7 +40,6 @@ import java.util.*;
 import java.util.stream.Collectors;
 
 import static java.util.Optional.ofNullable;
-import static ru.practicum.ewm.UtilityClass.formatter;
 import static ru.practicum.ewm.event.mapper.EventMapper.toEvent;
 import static ru.practicum.ewm.event.mapper.EventMapper.toEventFullDto;
 import static ru.practicum.ewm.request.mapper.RequestMapper.toRequestDto;
@@ -347,7 +345,7 @@ public class EventsServiceImpl implements EventsService {
 
     private void addStatistic(HttpServletRequest request) {
         String app = "ewm-main-service";
-        statClient.createHit(HitDto.builder()
+        statClient.emitHit(HitDto.builder()
                 .app(app)
                 .uri(request.getRequestURI())
                 .ip(request.getRemoteAddr())
@@ -368,15 +366,12 @@ public class EventsServiceImpl implements EventsService {
         List<Long> idEvents = events.stream()
                 .map(Event::getId)
                 .collect(Collectors.toList());
-        String start = LocalDateTime.now().minusYears(HUNDRED_YEARS).format(formatter);
-        String end = LocalDateTime.now().format(formatter);
         String eventsUri = "/events/";
         List<String> uris = idEvents.stream().map(id -> eventsUri + id).collect(Collectors.toList());
-        List<StatDto> viewStatDto = statClient.getStat(start, end, uris, true);
+        Map<String, Long> views = statClient.getViews(uris, true);
         Map<Long, Long> hits = new HashMap<>();
-        for (StatDto statsDto : viewStatDto) {
-            String uri = statsDto.getUri();
-            hits.put(Long.parseLong(uri.substring(eventsUri.length())), statsDto.getHits());
+        for (Map.Entry<String, Long> entry : views.entrySet()) {
+            hits.put(Long.parseLong(entry.getKey().substring(eventsUri.length())), entry.getValue());
         }
         return hits;
     }
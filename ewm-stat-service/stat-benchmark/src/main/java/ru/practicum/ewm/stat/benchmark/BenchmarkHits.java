@@ -0,0 +1,65 @@
+package ru.practicum.ewm.stat.benchmark;
+
+import ru.practicum.ewm.stat.dto.HitDto;
+import ru.practicum.ewm.stat.dto.StatDto;
+import ru.practicum.ewm.stat.service.model.Hit;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+final class BenchmarkHits {
+
+    static final String APP = "ewm-main-service";
+    static final int URIS = 1000;
+    static final int IPS = 100_000;
+    static final LocalDateTime FROM = LocalDateTime.of(2024, 1, 1, 0, 0);
+    static final int DAYS = 366;
+
+    private BenchmarkHits() {
+    }
+
+    static String uri(int index) {
+        return "/events/" + index;
+    }
+
+    static List<String> uris(int count) {
+        return IntStream.rangeClosed(1, count)
+                .mapToObj(BenchmarkHits::uri)
+                .collect(Collectors.toList());
+    }
+
+    static Hit hit(Random random) {
+        return Hit.builder()
+                .app(APP)
+                .uri(uri(1 + random.nextInt(URIS)))
+                .ip(ip(random.nextInt(IPS)))
+                .timestamp(FROM.plusSeconds(random.nextInt(DAYS * 24 * 60 * 60)))
+                .build();
+    }
+
+    static HitDto hitDto(Random random) {
+        Hit hit = hit(random);
+        return HitDto.builder()
+                .app(hit.getApp())
+                .uri(hit.getUri())
+                .ip(hit.getIp())
+                .timestamp(hit.getTimestamp())
+                .build();
+    }
+
+    static List<StatDto> stats(int count) {
+        List<StatDto> stats = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            stats.add(new StatDto(APP, uri(i + 1), (long) (count - i) * 17));
+        }
+        return stats;
+    }
+
+    private static String ip(int index) {
+        return "10." + (index >>> 16) + "." + ((index >>> 8) & 0xFF) + "." + (index & 0xFF);
+    }
+}
@@ -0,0 +1,114 @@
+package ru.practicum.ewm.stat.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import ru.practicum.ewm.stat.client.HitSender;
+import ru.practicum.ewm.stat.client.HitTransport;
+import ru.practicum.ewm.stat.dto.HitDto;
+
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+@Threads(4)
+public class HitCollectorBenchmark {
+
+    private static final int BODIES = 10_000;
+
+    @Param({"HTTP", "UDP", "TCP"})
+    private HitTransport transport;
+
+    private ConfigurableApplicationContext context;
+    private HttpClient httpClient;
+    private URI hitUri;
+    private int collectorPort;
+    private List<HitDto> hits;
+    private byte[][] hitBodies;
+    private final AtomicInteger next = new AtomicInteger();
+
+    @Setup
+    public void setUp() throws IOException {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            collectorPort = socket.getLocalPort();
+        }
+        context = StatServiceContext.start(WebApplicationType.SERVLET,
+                "stat.collector.enabled=" + (transport != HitTransport.HTTP),
+                "stat.collector.udp-port=" + collectorPort,
+                "stat.collector.tcp-port=" + collectorPort);
+        hitUri = URI.create("http://localhost:" + context.getEnvironment().getProperty("local.server.port") + "/hit");
+        httpClient = HttpClient.newHttpClient();
+        ObjectMapper mapper = Jackson2ObjectMapperBuilder.json().build();
+        Random random = new Random(42);
+        HitDto[] generated = new HitDto[BODIES];
+        hitBodies = new byte[BODIES][];
+        for (int i = 0; i < BODIES; i++) {
+            generated[i] = BenchmarkHits.hitDto(random);
+            hitBodies[i] = mapper.writeValueAsBytes(generated[i]);
+        }
+        hits = List.of(generated);
+    }
+
+    @TearDown
+    public void tearDown() {
+        MeterRegistry meterRegistry = context.getBean(MeterRegistry.class);
+        System.out.printf("%nПринято UDP %.0f, TCP %.0f, потеряно пакетов %.0f, ошибок разбора %.0f, отброшено %.0f%n",
+                meterRegistry.counter("stat.collector.received", "transport", "udp").count(),
+                meterRegistry.counter("stat.collector.received", "transport", "tcp").count(),
+                meterRegistry.counter("stat.collector.lost.packets").count(),
+                meterRegistry.counter("stat.collector.parse.errors").count(),
+                meterRegistry.counter("stat.collector.dropped").count());
+        context.close();
+    }
+
+    @Benchmark
+    public int sendHit(SenderState sender) throws IOException, InterruptedException {
+        int index = Math.floorMod(next.getAndIncrement(), BODIES);
+        if (transport != HitTransport.HTTP) {
+            sender.hitSender.send(List.of(hits.get(index)));
+            return index;
+        }
+        HttpRequest request = HttpRequest.newBuilder(hitUri)
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofByteArray(hitBodies[index]))
+                .build();
+        HttpResponse<String> response = httpClient.send(request, HttpResponse.BodyHandlers.ofString());
+        if (response.statusCode() != 201) {
+            throw new IllegalStateException("Неожиданный ответ " + response.statusCode() + " от " + hitUri + ": "
+                    + response.body());
+        }
+        return response.statusCode();
+    }
+
+    @State(Scope.Thread)
+    public static class SenderState {
+
+        private HitSender hitSender;
+
+        @Setup
+        public void setUp(HitCollectorBenchmark benchmark) {
+            hitSender = new HitSender(benchmark.transport, "localhost", benchmark.collectorPort, 1000);
+        }
+
+        @TearDown
+        public void tearDown() {
+            hitSender.close();
+        }
+    }
+}
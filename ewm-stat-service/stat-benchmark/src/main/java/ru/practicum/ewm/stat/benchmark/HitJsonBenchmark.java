@@ -0,0 +1,68 @@
+package ru.practicum.ewm.stat.benchmark;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import ru.practicum.ewm.stat.dto.HitDto;
+import ru.practicum.ewm.stat.dto.StatDto;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class HitJsonBenchmark {
+
+    private static final TypeReference<List<StatDto>> STAT_LIST = new TypeReference<>() {
+    };
+
+    @Param({"JSON", "SMILE"})
+    private String format;
+
+    @Param({"1000"})
+    private int stats;
+
+    private ObjectMapper mapper;
+    private HitDto hitDto;
+    private byte[] hitBytes;
+    private List<StatDto> statList;
+    private byte[] statBytes;
+
+    @Setup
+    public void setUp() throws JsonProcessingException {
+        mapper = "SMILE".equals(format) ? Jackson2ObjectMapperBuilder.smile().build()
+                : Jackson2ObjectMapperBuilder.json().build();
+        hitDto = BenchmarkHits.hitDto(new Random(42));
+        hitBytes = mapper.writeValueAsBytes(hitDto);
+        statList = BenchmarkHits.stats(stats);
+        statBytes = mapper.writeValueAsBytes(statList);
+    }
+
+    @Benchmark
+    public byte[] writeHit() throws JsonProcessingException {
+        return mapper.writeValueAsBytes(hitDto);
+    }
+
+    @Benchmark
+    public HitDto readHit() throws IOException {
+        return mapper.readValue(hitBytes, HitDto.class);
+    }
+
+    @Benchmark
+    public byte[] writeStats() throws JsonProcessingException {
+        return mapper.writeValueAsBytes(statList);
+    }
+
+    @Benchmark
+    public List<StatDto> readStats() throws IOException {
+        return mapper.readValue(statBytes, STAT_LIST);
+    }
+}
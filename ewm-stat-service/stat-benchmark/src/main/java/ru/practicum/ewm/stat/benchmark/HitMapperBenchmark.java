@@ -0,0 +1,38 @@
+package ru.practicum.ewm.stat.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import ru.practicum.ewm.stat.dto.HitDto;
+import ru.practicum.ewm.stat.service.mapper.HitMapper;
+import ru.practicum.ewm.stat.service.model.Hit;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class HitMapperBenchmark {
+
+    private HitDto hitDto;
+    private Hit hit;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(42);
+        hitDto = BenchmarkHits.hitDto(random);
+        hit = BenchmarkHits.hit(random);
+    }
+
+    @Benchmark
+    public Hit toHit() {
+        return HitMapper.toHit(hitDto);
+    }
+
+    @Benchmark
+    public HitDto toHitDto() {
+        return HitMapper.toHitDto(hit);
+    }
+}
@@ -0,0 +1,132 @@
+package ru.practicum.ewm.stat.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.context.ConfigurableApplicationContext;
+import ru.practicum.ewm.stat.dto.StatDto;
+import ru.practicum.ewm.stat.service.dictionary.HitDictionary;
+import ru.practicum.ewm.stat.service.model.Hit;
+import ru.practicum.ewm.stat.service.model.RollupGranularity;
+import ru.practicum.ewm.stat.service.repository.HitBucketCount;
+import ru.practicum.ewm.stat.service.repository.HitRepository;
+import ru.practicum.ewm.stat.service.repository.HitVisitor;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class HitRepositoryBenchmark {
+
+    private static final int SEED_BATCH_SIZE = 50_000;
+    private static final LocalDateTime START = LocalDateTime.of(2024, 3, 1, 0, 0);
+    private static final LocalDateTime END = LocalDateTime.of(2024, 3, 31, 23, 59, 59);
+    private static final LocalDateTime UNTIL = LocalDateTime.of(2024, 4, 1, 0, 0);
+
+    @Param({"100000", "1000000", "10000000"})
+    private int hits;
+
+    @Param({"10"})
+    private int uriCount;
+
+    private ConfigurableApplicationContext context;
+    private HitDictionary hitDictionary;
+    private HitRepository hitRepository;
+    private List<String> uris;
+
+    @Setup
+    public void setUp() {
+        context = StatServiceContext.start(WebApplicationType.NONE,
+                "stat.live.enabled=false");
+        hitDictionary = context.getBean(HitDictionary.class);
+        hitRepository = context.getBean(HitRepository.class);
+        uris = BenchmarkHits.uris(uriCount);
+        Random random = new Random(42);
+        List<Hit> batch = new ArrayList<>(SEED_BATCH_SIZE);
+        for (int i = 0; i < hits; i++) {
+            batch.add(BenchmarkHits.hit(random));
+            if (batch.size() == SEED_BATCH_SIZE || i == hits - 1) {
+                batch.forEach(hitDictionary::register);
+                hitRepository.saveAllInBatch(batch);
+                batch.clear();
+            }
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public List<StatDto> findAllWithoutUris() {
+        return hitRepository.findAllWithoutUris(START, END);
+    }
+
+    @Benchmark
+    public List<StatDto> findAllWithUris() {
+        return hitRepository.findAllWithUris(uris, START, END);
+    }
+
+    @Benchmark
+    public List<StatDto> findAllUniqueIpWithoutUris() {
+        return hitRepository.findAllUniqueIpWithoutUris(START, END);
+    }
+
+    @Benchmark
+    public List<StatDto> findAllUniqueIpWithUris() {
+        return hitRepository.findAllUniqueIpWithUris(uris, START, END);
+    }
+
+    @Benchmark
+    public List<StatDto> findAllWithoutUrisFromUntil() {
+        return hitRepository.findAllWithoutUrisFromUntil(START, UNTIL);
+    }
+
+    @Benchmark
+    public List<StatDto> findAllWithUrisFromUntil() {
+        return hitRepository.findAllWithUrisFromUntil(uris, START, UNTIL);
+    }
+
+    @Benchmark
+    public List<HitVisitor> findVisitorsWithoutUris() {
+        return hitRepository.findVisitorsWithoutUris(START, END);
+    }
+
+    @Benchmark
+    public List<HitVisitor> findVisitorsWithUris() {
+        return hitRepository.findVisitorsWithUris(uris, START, END);
+    }
+
+    @Benchmark
+    public List<HitVisitor> findVisitorsWithoutUrisFromUntil() {
+        return hitRepository.findVisitorsWithoutUrisFromUntil(START, UNTIL);
+    }
+
+    @Benchmark
+    public List<HitVisitor> findVisitorsWithUrisFromUntil() {
+        return hitRepository.findVisitorsWithUrisFromUntil(uris, START, UNTIL);
+    }
+
+    @Benchmark
+    public List<HitBucketCount> countUniqueByBucket() {
+        return hitRepository.countUniqueByBucket(RollupGranularity.DAY, uris, START, END);
+    }
+
+    @Benchmark
+    public List<Hit> findAllCreatedFromUntil() {
+        return hitRepository.findAllCreatedFromUntil(START, START.plusDays(1));
+    }
+
+    @Benchmark
+    public LocalDateTime findMinCreated() {
+        return hitRepository.findMinCreated();
+    }
+}
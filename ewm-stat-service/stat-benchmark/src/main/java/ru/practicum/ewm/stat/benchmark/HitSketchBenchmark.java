@@ -0,0 +1,116 @@
+package ru.practicum.ewm.stat.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.context.ConfigurableApplicationContext;
+import ru.practicum.ewm.stat.dto.StatDto;
+import ru.practicum.ewm.stat.service.dictionary.HitDictionary;
+import ru.practicum.ewm.stat.service.model.Hit;
+import ru.practicum.ewm.stat.service.model.HitSketch;
+import ru.practicum.ewm.stat.service.repository.HitRepository;
+import ru.practicum.ewm.stat.service.repository.HitSketchRepository;
+import ru.practicum.ewm.stat.service.service.HitSketchService;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class HitSketchBenchmark {
+
+    private static final int SEED_BATCH_SIZE = 50_000;
+    private static final LocalDateTime START = LocalDateTime.of(2024, 3, 1, 0, 0);
+    private static final LocalDateTime END = LocalDateTime.of(2024, 4, 1, 0, 0);
+
+    @Param({"100000", "1000000"})
+    private int hits;
+
+    @Param({"10"})
+    private int uriCount;
+
+    private ConfigurableApplicationContext context;
+    private HitDictionary hitDictionary;
+    private HitRepository hitRepository;
+    private HitSketchService hitSketchService;
+    private List<String> uris;
+
+    @Setup
+    public void setUp() {
+        context = StatServiceContext.start(WebApplicationType.NONE,
+                "stat.live.enabled=false",
+                "stat.sketch.flush-interval-ms=3600000");
+        hitDictionary = context.getBean(HitDictionary.class);
+        hitRepository = context.getBean(HitRepository.class);
+        hitSketchService = context.getBean(HitSketchService.class);
+        uris = BenchmarkHits.uris(uriCount);
+        Random random = new Random(42);
+        List<Hit> batch = new ArrayList<>(SEED_BATCH_SIZE);
+        for (int i = 0; i < hits; i++) {
+            batch.add(BenchmarkHits.hit(random));
+            if (batch.size() == SEED_BATCH_SIZE || i == hits - 1) {
+                batch.forEach(hitDictionary::register);
+                hitRepository.saveAllInBatch(batch);
+                hitSketchService.addAll(batch);
+                batch = new ArrayList<>(SEED_BATCH_SIZE);
+            }
+        }
+        hitSketchService.flush();
+        report();
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public List<StatDto> exactUniqueWithUris() {
+        return hitRepository.findAllUniqueIpWithUris(uris, START, END);
+    }
+
+    @Benchmark
+    public List<StatDto> sketchUniqueWithUris() {
+        return hitSketchService.getStat(START, END, uris);
+    }
+
+    @Benchmark
+    public List<StatDto> exactUniqueWithoutUris() {
+        return hitRepository.findAllUniqueIpWithoutUris(START, END);
+    }
+
+    @Benchmark
+    public List<StatDto> sketchUniqueWithoutUris() {
+        return hitSketchService.getStat(START, END, null);
+    }
+
+    private void report() {
+        List<HitSketch> sketches = context.getBean(HitSketchRepository.class).findAll();
+        long sketchBytes = sketches.stream().mapToLong(sketch -> sketch.getSketch().length).sum();
+        long visitors = hitRepository.findVisitorsWithoutUris(START, END).size();
+        Map<String, Long> exact = new HashMap<>();
+        for (StatDto stat : hitRepository.findAllUniqueIpWithoutUris(START, END)) {
+            exact.put(stat.getUri(), stat.getHits());
+        }
+        double errorSum = 0;
+        double errorMax = 0;
+        for (StatDto stat : hitSketchService.getStat(START, END, null)) {
+            long expected = exact.getOrDefault(stat.getUri(), 0L);
+            double error = expected == 0 ? 1 : Math.abs(stat.getHits() - expected) / (double) expected;
+            errorSum += error;
+            errorMax = Math.max(errorMax, error);
+        }
+        System.out.printf("%nhits=%d: %d sketches, %d bytes stored (%d distinct visitors in range); "
+                        + "relative error mean %.4f, max %.4f over %d uris%n",
+                hits, sketches.size(), sketchBytes, visitors, errorSum / Math.max(1, exact.size()), errorMax,
+                exact.size());
+    }
+}
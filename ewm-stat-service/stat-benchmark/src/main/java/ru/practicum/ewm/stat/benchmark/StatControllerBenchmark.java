@@ -0,0 +1,103 @@
+package ru.practicum.ewm.stat.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import ru.practicum.ewm.stat.dto.HitDto;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+@Threads(4)
+public class StatControllerBenchmark {
+
+    private static final int BODIES = 10_000;
+    private static final int BATCH_SIZE = 100;
+
+    @Param({"false", "true"})
+    private boolean writeBehind;
+
+    private ConfigurableApplicationContext context;
+    private HttpClient httpClient;
+    private URI hitUri;
+    private URI batchUri;
+    private byte[][] hitBodies;
+    private byte[][] batchBodies;
+    private final AtomicInteger next = new AtomicInteger();
+
+    @Setup
+    public void setUp() throws IOException, InterruptedException {
+        context = StatServiceContext.start(WebApplicationType.SERVLET,
+                "stat.write-behind.enabled=" + writeBehind);
+        String baseUri = "http://localhost:" + context.getEnvironment().getProperty("local.server.port");
+        hitUri = URI.create(baseUri + "/hit");
+        batchUri = URI.create(baseUri + "/hits/batch");
+        httpClient = HttpClient.newHttpClient();
+        ObjectMapper mapper = Jackson2ObjectMapperBuilder.json().build();
+        Random random = new Random(42);
+        hitBodies = new byte[BODIES][];
+        for (int i = 0; i < BODIES; i++) {
+            hitBodies[i] = mapper.writeValueAsBytes(BenchmarkHits.hitDto(random));
+        }
+        batchBodies = new byte[BODIES / BATCH_SIZE][];
+        for (int i = 0; i < batchBodies.length; i++) {
+            List<HitDto> batch = new ArrayList<>(BATCH_SIZE);
+            for (int j = 0; j < BATCH_SIZE; j++) {
+                batch.add(BenchmarkHits.hitDto(random));
+            }
+            batchBodies[i] = mapper.writeValueAsBytes(batch);
+        }
+        List<HitDto> known = new ArrayList<>(BenchmarkHits.URIS);
+        for (String uri : BenchmarkHits.uris(BenchmarkHits.URIS)) {
+            HitDto hitDto = BenchmarkHits.hitDto(random);
+            hitDto.setUri(uri);
+            known.add(hitDto);
+        }
+        post(batchUri, mapper.writeValueAsBytes(known));
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public int postHit() throws IOException, InterruptedException {
+        return post(hitUri, hitBodies[Math.floorMod(next.getAndIncrement(), hitBodies.length)]);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH_SIZE)
+    public int postHitsBatch() throws IOException, InterruptedException {
+        return post(batchUri, batchBodies[Math.floorMod(next.getAndIncrement(), batchBodies.length)]);
+    }
+
+    private int post(URI uri, byte[] body) throws IOException, InterruptedException {
+        HttpRequest request = HttpRequest.newBuilder(uri)
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofByteArray(body))
+                .build();
+        HttpResponse<String> response = httpClient.send(request, HttpResponse.BodyHandlers.ofString());
+        if (response.statusCode() != 201) {
+            throw new IllegalStateException("Неожиданный ответ " + response.statusCode() + " от " + uri + ": "
+                    + response.body());
+        }
+        return response.statusCode();
+    }
+}
@@ -0,0 +1,107 @@
+package ru.practicum.ewm.stat.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import ru.practicum.ewm.stat.dto.HitDto;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 10)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+@Threads(256)
+public class StatIngestionBenchmark {
+
+    private static final int BODIES = 10_000;
+
+    @Param({"MVC", "ASYNC", "ASYNC_WRITE_BEHIND"})
+    private IngestionMode mode;
+
+    private ConfigurableApplicationContext context;
+    private HttpClient httpClient;
+    private URI hitUri;
+    private URI statsUri;
+    private byte[][] hitBodies;
+    private final AtomicInteger next = new AtomicInteger();
+
+    @Setup
+    public void setUp() throws IOException, InterruptedException {
+        context = StatServiceContext.start(WebApplicationType.SERVLET, mode.properties);
+        String baseUri = "http://localhost:" + context.getEnvironment().getProperty("local.server.port");
+        hitUri = URI.create(baseUri + "/hit");
+        statsUri = URI.create(baseUri + "/stats?start=2024-01-01%2000:00:00&end=2025-01-01%2000:00:00&uris="
+                + String.join(",", BenchmarkHits.uris(10)));
+        httpClient = HttpClient.newHttpClient();
+        ObjectMapper mapper = Jackson2ObjectMapperBuilder.json().build();
+        Random random = new Random(42);
+        hitBodies = new byte[BODIES][];
+        for (int i = 0; i < BODIES; i++) {
+            hitBodies[i] = mapper.writeValueAsBytes(BenchmarkHits.hitDto(random));
+        }
+        List<HitDto> known = new ArrayList<>(BenchmarkHits.URIS);
+        for (String uri : BenchmarkHits.uris(BenchmarkHits.URIS)) {
+            HitDto hitDto = BenchmarkHits.hitDto(random);
+            hitDto.setUri(uri);
+            known.add(hitDto);
+        }
+        send(HttpRequest.newBuilder(URI.create(baseUri + "/hits/batch"))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofByteArray(mapper.writeValueAsBytes(known)))
+                .build(), 201);
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public int postHit() throws IOException, InterruptedException {
+        return send(HttpRequest.newBuilder(hitUri)
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofByteArray(
+                        hitBodies[Math.floorMod(next.getAndIncrement(), hitBodies.length)]))
+                .build(), 201);
+    }
+
+    @Benchmark
+    public int getStat() throws IOException, InterruptedException {
+        return send(HttpRequest.newBuilder(statsUri).GET().build(), 200);
+    }
+
+    private int send(HttpRequest request, int expectedStatus) throws IOException, InterruptedException {
+        HttpResponse<String> response = httpClient.send(request, HttpResponse.BodyHandlers.ofString());
+        if (response.statusCode() != expectedStatus) {
+            throw new IllegalStateException("Неожиданный ответ " + response.statusCode() + " от " + request.uri()
+                    + ": " + response.body());
+        }
+        return response.statusCode();
+    }
+
+    public enum IngestionMode {
+        MVC("stat.async.enabled=false"),
+        ASYNC("stat.async.enabled=true"),
+        ASYNC_WRITE_BEHIND("stat.async.enabled=true", "stat.write-behind.enabled=true");
+
+        private final String[] properties;
+
+        IngestionMode(String... properties) {
+            this.properties = properties;
+        }
+    }
+}
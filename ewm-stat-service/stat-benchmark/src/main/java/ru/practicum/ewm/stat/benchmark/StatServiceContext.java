@@ -0,0 +1,32 @@
+package ru.practicum.ewm.stat.benchmark;
+
+import org.springframework.boot.Banner;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import ru.practicum.ewm.stat.service.StatServiceApp;
+
+import java.util.ArrayList;
+import java.util.List;
+
+final class StatServiceContext {
+
+    private StatServiceContext() {
+    }
+
+    static ConfigurableApplicationContext start(WebApplicationType webApplicationType, String... properties) {
+        List<String> args = new ArrayList<>(List.of(
+                "--spring.datasource.url=jdbc:h2:mem:stat-benchmark-" + System.nanoTime() + ";DB_CLOSE_ON_EXIT=FALSE",
+                "--spring.jpa.show-sql=false",
+                "--logging.level.root=WARN",
+                "--server.port=0"));
+        for (String property : properties) {
+            args.add("--" + property);
+        }
+        return new SpringApplicationBuilder(StatServiceApp.class)
+                .web(webApplicationType)
+                .bannerMode(Banner.Mode.OFF)
+                .profiles("test")
+                .run(args.toArray(String[]::new));
+    }
+}
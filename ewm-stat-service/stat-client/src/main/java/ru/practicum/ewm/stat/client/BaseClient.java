@@ -1,6 +1,7 @@
 package ru.practicum.ewm.stat.client;
 
 
+import org.springframework.core.ParameterizedTypeReference;
 import org.springframework.http.*;
 import org.springframework.lang.Nullable;
 import org.springframework.web.client.HttpStatusCodeException;
@@ -20,8 +21,18 @@ public class BaseClient {
         return makeAndSendRequest(HttpMethod.GET, path, parameters, null);
     }
 
+    protected <R> R get(String path, Map<String, Object> parameters, ParameterizedTypeReference<R> responseType) {
+        return rest.exchange(path, HttpMethod.GET, new HttpEntity<>(defaultHeaders()), responseType, parameters)
+                .getBody();
+    }
+
+    protected <T, R> R post(String path, T body, ParameterizedTypeReference<R> responseType) {
+        return rest.exchange(path, HttpMethod.POST, new HttpEntity<>(body, defaultHeaders()), responseType)
+                .getBody();
+    }
+
     protected <T> ResponseEntity<Object> post(String path, T body) {
-        return post(path, body, null);
+        return post(path, body, (Map<String, Object>) null);
     }
 
     protected <T> ResponseEntity<Object> post(String path, T body, @Nullable Map<String, Object> parameters) {
@@ -47,8 +58,8 @@ public class BaseClient {
 
     private HttpHeaders defaultHeaders() {
         HttpHeaders headers = new HttpHeaders();
-        headers.setContentType(MediaType.APPLICATION_JSON);
-        headers.setAccept(List.of(MediaType.APPLICATION_JSON));
+        headers.setContentType(StatCodec.SMILE);
+        headers.setAccept(List.of(StatCodec.SMILE, MediaType.APPLICATION_JSON));
         return headers;
     }
 
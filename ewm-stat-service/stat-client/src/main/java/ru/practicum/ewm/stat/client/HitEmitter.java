@@ -0,0 +1,139 @@
+package ru.practicum.ewm.stat.client;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import ru.practicum.ewm.stat.dto.HitDto;
+
+import java.io.Closeable;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+@Slf4j
+public class HitEmitter implements Closeable {
+
+    private final Consumer<List<HitDto>> sink;
+    private final int batchSize;
+    private final long flushIntervalNanos;
+    private final long blockTimeoutMillis;
+    private final long shutdownTimeoutMillis;
+    private final HitOverflowPolicy overflowPolicy;
+    private final BlockingQueue<HitDto> queue;
+    private final Timer sendTimer;
+    private final Counter droppedCounter;
+    private final Counter failedCounter;
+    private final Thread flusher;
+    private volatile boolean running = true;
+
+    public HitEmitter(Consumer<List<HitDto>> sink,
+                      MeterRegistry meterRegistry,
+                      int capacity,
+                      int batchSize,
+                      long flushIntervalMillis,
+                      long blockTimeoutMillis,
+                      long shutdownTimeoutMillis,
+                      HitOverflowPolicy overflowPolicy) {
+        this.sink = sink;
+        this.batchSize = batchSize;
+        this.flushIntervalNanos = TimeUnit.MILLISECONDS.toNanos(flushIntervalMillis);
+        this.blockTimeoutMillis = blockTimeoutMillis;
+        this.shutdownTimeoutMillis = shutdownTimeoutMillis;
+        this.overflowPolicy = overflowPolicy;
+        this.queue = new ArrayBlockingQueue<>(capacity);
+        meterRegistry.gauge("stat.client.emitter.depth", queue, BlockingQueue::size);
+        this.sendTimer = meterRegistry.timer("stat.client.emitter.send");
+        this.droppedCounter = meterRegistry.counter("stat.client.emitter.dropped");
+        this.failedCounter = meterRegistry.counter("stat.client.emitter.failed");
+        this.flusher = new Thread(this::flushLoop, "stat-hit-emitter");
+        this.flusher.setDaemon(true);
+        this.flusher.start();
+        log.info("Фоновая отправка хитов включена, пакет {}, интервал {} мс, политика переполнения {}",
+                batchSize, flushIntervalMillis, overflowPolicy);
+    }
+
+    public void emit(HitDto hit) {
+        switch (overflowPolicy) {
+            case BLOCK:
+                try {
+                    if (!queue.offer(hit, blockTimeoutMillis, TimeUnit.MILLISECONDS)) {
+                        droppedCounter.increment();
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    droppedCounter.increment();
+                }
+                break;
+            case DROP:
+                if (!queue.offer(hit)) {
+                    droppedCounter.increment();
+                }
+                break;
+            case DROP_OLDEST:
+                while (!queue.offer(hit)) {
+                    if (queue.poll() != null) {
+                        droppedCounter.increment();
+                    }
+                }
+                break;
+        }
+    }
+
+    @Override
+    public void close() {
+        running = false;
+        try {
+            flusher.join(shutdownTimeoutMillis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (flusher.isAlive() || !queue.isEmpty()) {
+            log.warn("Фоновая отправка хитов остановлена, не отправлено {} хитов", queue.size());
+        } else {
+            log.info("Фоновая отправка хитов остановлена, очередь отправлена");
+        }
+    }
+
+    private void flushLoop() {
+        List<HitDto> batch = new ArrayList<>(batchSize);
+        while (running || !queue.isEmpty()) {
+            try {
+                fillBatch(batch);
+            } catch (InterruptedException e) {
+                running = false;
+            }
+            if (!batch.isEmpty()) {
+                send(batch);
+                batch.clear();
+            }
+        }
+    }
+
+    private void fillBatch(List<HitDto> batch) throws InterruptedException {
+        long deadline = System.nanoTime() + flushIntervalNanos;
+        while (batch.size() < batchSize) {
+            queue.drainTo(batch, batchSize - batch.size());
+            long remaining = deadline - System.nanoTime();
+            if (batch.size() >= batchSize || remaining <= 0 || (!running && queue.isEmpty())) {
+                return;
+            }
+            HitDto hit = queue.poll(remaining, TimeUnit.NANOSECONDS);
+            if (hit != null) {
+                batch.add(hit);
+            }
+        }
+    }
+
+    private void send(List<HitDto> batch) {
+        try {
+            sendTimer.record(() -> sink.accept(batch));
+        } catch (RuntimeException e) {
+            failedCounter.increment(batch.size());
+            log.warn("Не удалось отправить пакет из {} хитов: {}", batch.size(), e.getMessage());
+        }
+    }
+}
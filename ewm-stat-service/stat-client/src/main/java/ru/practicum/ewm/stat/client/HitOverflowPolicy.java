@@ -0,0 +1,7 @@
+package ru.practicum.ewm.stat.client;
+
+public enum HitOverflowPolicy {
+    BLOCK,
+    DROP,
+    DROP_OLDEST
+}
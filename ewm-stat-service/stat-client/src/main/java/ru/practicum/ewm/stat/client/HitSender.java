@@ -0,0 +1,107 @@
+package ru.practicum.ewm.stat.client;
+
+import lombok.extern.slf4j.Slf4j;
+import ru.practicum.ewm.stat.dto.HitDto;
+import ru.practicum.ewm.stat.dto.HitPacket;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.ByteChannel;
+import java.nio.channels.DatagramChannel;
+import java.nio.channels.SocketChannel;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+@Slf4j
+public class HitSender implements Closeable {
+
+    private final HitTransport transport;
+    private final InetSocketAddress address;
+    private final int connectTimeoutMillis;
+    private final long senderId = ThreadLocalRandom.current().nextLong();
+    private final ByteBuffer prefix = ByteBuffer.allocate(Short.BYTES);
+    private final ByteBuffer packet = ByteBuffer.allocate(HitPacket.MAX_SIZE);
+
+    private ByteChannel channel;
+    private int sequence;
+
+    public HitSender(HitTransport transport, String host, int port, int connectTimeoutMillis) {
+        this.transport = transport;
+        this.address = new InetSocketAddress(host, port);
+        this.connectTimeoutMillis = connectTimeoutMillis;
+    }
+
+    public synchronized void send(List<HitDto> hits) {
+        if (hits.isEmpty()) {
+            return;
+        }
+        try {
+            startPacket();
+            for (HitDto hit : hits) {
+                if (!HitPacket.writeHit(packet, hit)) {
+                    flush();
+                    startPacket();
+                    HitPacket.writeHit(packet, hit);
+                }
+            }
+            flush();
+        } catch (IOException e) {
+            close();
+            throw new UncheckedIOException("Не удалось отправить хиты по " + transport, e);
+        }
+    }
+
+    @Override
+    public synchronized void close() {
+        if (channel == null) {
+            return;
+        }
+        try {
+            channel.close();
+        } catch (IOException e) {
+            log.debug("Ошибка закрытия канала отправки хитов", e);
+        }
+        channel = null;
+    }
+
+    private void startPacket() {
+        packet.clear();
+        HitPacket.writeHeader(packet, senderId, sequence++);
+    }
+
+    private void flush() throws IOException {
+        packet.flip();
+        if (transport == HitTransport.UDP) {
+            channel().write(packet);
+            return;
+        }
+        prefix.clear();
+        prefix.putShort((short) packet.remaining()).flip();
+        SocketChannel socket = (SocketChannel) channel();
+        ByteBuffer[] buffers = {prefix, packet};
+        while (packet.hasRemaining()) {
+            socket.write(buffers);
+        }
+    }
+
+    private ByteChannel channel() throws IOException {
+        if (channel == null) {
+            channel = transport == HitTransport.UDP ? DatagramChannel.open().connect(address) : connect();
+        }
+        return channel;
+    }
+
+    private SocketChannel connect() throws IOException {
+        SocketChannel socket = SocketChannel.open();
+        try {
+            socket.socket().connect(address, connectTimeoutMillis);
+            return socket;
+        } catch (IOException e) {
+            socket.close();
+            throw e;
+        }
+    }
+}
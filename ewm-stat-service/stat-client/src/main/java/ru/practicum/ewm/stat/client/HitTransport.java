@@ -0,0 +1,7 @@
+package ru.practicum.ewm.stat.client;
+
+public enum HitTransport {
+    HTTP,
+    UDP,
+    TCP
+}
@@ -0,0 +1,98 @@
+package ru.practicum.ewm.stat.client;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.client.HttpClientErrorException;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+@Slf4j
+class StatCircuitBreaker {
+
+    private final int failureThreshold;
+    private final long openNanos;
+    private final Counter rejectedCounter;
+    private final Counter openedCounter;
+
+    private State state = State.CLOSED;
+    private int failures;
+    private long openedAt;
+    private boolean trialInFlight;
+
+    StatCircuitBreaker(MeterRegistry meterRegistry, int failureThreshold, long openMillis) {
+        this.failureThreshold = failureThreshold;
+        this.openNanos = TimeUnit.MILLISECONDS.toNanos(openMillis);
+        this.rejectedCounter = meterRegistry.counter("stat.client.breaker.rejected");
+        this.openedCounter = meterRegistry.counter("stat.client.breaker.opened");
+        meterRegistry.gauge("stat.client.breaker.state", this, breaker -> breaker.getState().ordinal());
+    }
+
+    <T> T execute(Supplier<T> call) {
+        acquire();
+        T result;
+        try {
+            result = call.get();
+        } catch (HttpClientErrorException e) {
+            onSuccess();
+            throw e;
+        } catch (RuntimeException e) {
+            onFailure();
+            throw e;
+        }
+        if (result instanceof ResponseEntity && ((ResponseEntity<?>) result).getStatusCode().is5xxServerError()) {
+            onFailure();
+        } else {
+            onSuccess();
+        }
+        return result;
+    }
+
+    synchronized State getState() {
+        return state;
+    }
+
+    private synchronized void acquire() {
+        if (state == State.OPEN) {
+            if (System.nanoTime() - openedAt < openNanos) {
+                rejectedCounter.increment();
+                throw new StatServiceUnavailableException("Сервис статистики временно недоступен");
+            }
+            state = State.HALF_OPEN;
+            trialInFlight = false;
+            log.info("Пробный запрос к сервису статистики");
+        }
+        if (state == State.HALF_OPEN) {
+            if (trialInFlight) {
+                rejectedCounter.increment();
+                throw new StatServiceUnavailableException("Сервис статистики временно недоступен");
+            }
+            trialInFlight = true;
+        }
+    }
+
+    private synchronized void onSuccess() {
+        failures = 0;
+        if (state != State.CLOSED) {
+            state = State.CLOSED;
+            log.info("Сервис статистики снова доступен");
+        }
+    }
+
+    private synchronized void onFailure() {
+        failures++;
+        if (state == State.HALF_OPEN || (state == State.CLOSED && failures >= failureThreshold)) {
+            state = State.OPEN;
+            openedAt = System.nanoTime();
+            openedCounter.increment();
+            log.warn("Сервис статистики недоступен после {} ошибок подряд, запросы приостановлены на {} мс",
+                    failures, TimeUnit.NANOSECONDS.toMillis(openNanos));
+        }
+    }
+
+    enum State {
+        CLOSED, HALF_OPEN, OPEN
+    }
+}
@@ -1,48 +1,265 @@
 package ru.practicum.ewm.stat.client;
 
-import com.fasterxml.jackson.core.type.TypeReference;
-import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.http.impl.client.CloseableHttpClient;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.web.client.RestTemplateBuilder;
+import org.springframework.core.ParameterizedTypeReference;
 import org.springframework.http.ResponseEntity;
 import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+import org.springframework.http.converter.smile.MappingJackson2SmileHttpMessageConverter;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
 import org.springframework.stereotype.Service;
+import org.springframework.web.client.RestClientException;
 import org.springframework.web.util.DefaultUriBuilderFactory;
 import ru.practicum.ewm.stat.dto.HitDto;
 import ru.practicum.ewm.stat.dto.StatDto;
+import ru.practicum.ewm.stat.dto.StatQueryDto;
 
+import javax.annotation.PreDestroy;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
 
+@Slf4j
 @Service
 public class StatClient extends BaseClient {
 
+    private static final ParameterizedTypeReference<List<StatDto>> STAT_LIST = new ParameterizedTypeReference<>() {
+    };
+
+    private static final DateTimeFormatter DATE_TIME_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+    private static final long VIEWS_HISTORY_YEARS = 100;
+
+    private final HitSender hitSender;
+    private final HitEmitter hitEmitter;
+    private final ViewCountCache viewCountCache;
+    private final StatRequestCollapser requestCollapser;
+    private final int postThreshold;
+    private final int chunkSize;
+    private final ExecutorService chunkExecutor;
+    private final StatCircuitBreaker circuitBreaker;
+    private final boolean viewsFallbackEnabled;
+    private final Counter viewsFallbackCounter;
+
     @Autowired
-    public StatClient(@Value("${stat-service.url}") String serverUrl, RestTemplateBuilder builder) {
+    public StatClient(StatClientProperties properties,
+                      CloseableHttpClient statHttpClient,
+                      RestTemplateBuilder builder,
+                      MeterRegistry meterRegistry) {
         super(
                 builder
-                        .uriTemplateHandler(new DefaultUriBuilderFactory(serverUrl))
-                        .requestFactory(HttpComponentsClientHttpRequestFactory::new)
+                        .uriTemplateHandler(new DefaultUriBuilderFactory(properties.getUrl()))
+                        .requestFactory(() -> new HttpComponentsClientHttpRequestFactory(statHttpClient))
+                        .messageConverters(
+                                new MappingJackson2SmileHttpMessageConverter(StatCodec.SMILE_MAPPER),
+                                new MappingJackson2HttpMessageConverter(StatCodec.JSON_MAPPER))
                         .build()
         );
+        StatClientProperties.Collector collector = properties.getCollector();
+        this.hitSender = properties.getTransport() == HitTransport.HTTP ? null
+                : new HitSender(properties.getTransport(), collector.getHost(), collector.getPort(),
+                collector.getConnectTimeoutMs());
+        StatClientProperties.Emitter emitter = properties.getEmitter();
+        this.hitEmitter = emitter.isEnabled() || hitSender != null
+                ? new HitEmitter(this::sendHits, meterRegistry, emitter.getCapacity(), emitter.getBatchSize(),
+                emitter.getFlushIntervalMs(), emitter.getBlockTimeoutMs(), emitter.getShutdownTimeoutMs(),
+                emitter.getOverflowPolicy())
+                : null;
+        StatClientProperties.ViewsCache viewsCache = properties.getViewsCache();
+        this.viewCountCache = viewsCache.getTtlMs() > 0
+                ? new ViewCountCache(meterRegistry, viewsCache.getTtlMs(), viewsCache.getMaxSize())
+                : null;
+        StatClientProperties.Collapsing collapsing = properties.getCollapsing();
+        this.requestCollapser = collapsing.isEnabled()
+                ? new StatRequestCollapser(meterRegistry, collapsing.getWindowMs(), collapsing.getMaxBatchSize())
+                : null;
+        StatClientProperties.StatsQuery statsQuery = properties.getStatsQuery();
+        this.postThreshold = statsQuery.getPostThreshold();
+        this.chunkSize = statsQuery.getChunkSize();
+        CustomizableThreadFactory chunkThreadFactory = new CustomizableThreadFactory("stat-query-");
+        chunkThreadFactory.setDaemon(true);
+        this.chunkExecutor = Executors.newFixedThreadPool(statsQuery.getParallelism(), chunkThreadFactory);
+        StatClientProperties.Breaker breaker = properties.getBreaker();
+        this.circuitBreaker = breaker.isEnabled()
+                ? new StatCircuitBreaker(meterRegistry, breaker.getFailureThreshold(), breaker.getOpenMs())
+                : null;
+        this.viewsFallbackEnabled = properties.getViewsFallback().isEnabled();
+        this.viewsFallbackCounter = meterRegistry.counter("stat.client.views.fallback");
     }
 
     public ResponseEntity<Object> createHit(HitDto hitDto) {
-        return post("/hit", hitDto);
+        if (hitSender != null) {
+            emit(hitDto);
+            return ResponseEntity.accepted().build();
+        }
+        ResponseEntity<Object> response = call(() -> post("/hit", hitDto));
+        invalidateViews(List.of(hitDto));
+        return response;
+    }
+
+    public void emitHit(HitDto hitDto) {
+        if (hitEmitter != null) {
+            emit(hitDto);
+            return;
+        }
+        createHit(hitDto);
+    }
+
+    public ResponseEntity<Object> createHits(List<HitDto> hits) {
+        if (hitSender != null) {
+            hits.forEach(this::emit);
+            return ResponseEntity.accepted().build();
+        }
+        ResponseEntity<Object> response = call(() -> post("/hits/batch", hits));
+        invalidateViews(hits);
+        return response;
     }
 
     public List<StatDto> getStat(String start, String end, List<String> uris, boolean unique) {
+        if (requestCollapser != null) {
+            return requestCollapser.getStat(List.of(start, end, uris, unique),
+                    () -> call(() -> fetchStat(start, end, uris, unique)));
+        }
+        return call(() -> fetchStat(start, end, uris, unique));
+    }
+
+    public Map<String, Long> getViews(List<String> uris, boolean unique) {
+        if (uris.isEmpty()) {
+            return Map.of();
+        }
+        try {
+            if (viewCountCache != null) {
+                return viewCountCache.getAll(uris, unique, missing -> loadViews(missing, unique));
+            }
+            return loadViews(uris, unique);
+        } catch (RestClientException | StatServiceUnavailableException e) {
+            if (!viewsFallbackEnabled) {
+                throw e;
+            }
+            viewsFallbackCounter.increment();
+            log.debug("Просмотры взяты из последних известных значений: {}", e.getMessage());
+            return viewCountCache != null ? viewCountCache.getLastKnown(uris, unique) : zeroViews(uris);
+        }
+    }
+
+    @PreDestroy
+    public void close() {
+        chunkExecutor.shutdownNow();
+        if (hitEmitter != null) {
+            hitEmitter.close();
+        }
+        if (hitSender != null) {
+            hitSender.close();
+        }
+    }
+
+    private void emit(HitDto hitDto) {
+        invalidateViews(List.of(hitDto));
+        hitEmitter.emit(hitDto);
+    }
+
+    private void invalidateViews(List<HitDto> hits) {
+        if (viewCountCache != null) {
+            viewCountCache.invalidate(hits.stream()
+                    .map(HitDto::getUri)
+                    .collect(Collectors.toSet()));
+        }
+    }
+
+    private void sendHits(List<HitDto> hits) {
+        if (hitSender != null) {
+            hitSender.send(hits);
+            invalidateViews(hits);
+            return;
+        }
+        ResponseEntity<Object> response = createHits(hits);
+        if (response.getStatusCode().isError()) {
+            throw new IllegalStateException("Сервис статистики ответил " + response.getStatusCode());
+        }
+    }
+
+    private List<StatDto> fetchStat(String start, String end, List<String> uris, boolean unique) {
+        if (uris.size() > postThreshold) {
+            return queryStat(LocalDateTime.parse(start, DATE_TIME_FORMAT), LocalDateTime.parse(end, DATE_TIME_FORMAT),
+                    uris, unique);
+        }
         Map<String, Object> parameters = Map.of(
                 "start", start,
                 "end", end,
                 "uris", String.join(",", uris),
                 "unique", unique
         );
-        ResponseEntity<Object> objectResponseEntity =
-                get("/stats?start={start}&end={end}&uris={uris}&unique={unique}", parameters);
-        List<StatDto> statDto = new ObjectMapper().convertValue(objectResponseEntity.getBody(), new TypeReference<>() {
-        });
-        return statDto;
+        return get("/stats?start={start}&end={end}&uris={uris}&unique={unique}", parameters, STAT_LIST);
+    }
+
+    private List<StatDto> queryStat(LocalDateTime start, LocalDateTime end, List<String> uris, boolean unique) {
+        if (uris.size() <= chunkSize) {
+            return postQuery(start, end, uris, unique);
+        }
+        List<CompletableFuture<List<StatDto>>> chunks = new ArrayList<>();
+        for (int from = 0; from < uris.size(); from += chunkSize) {
+            List<String> chunk = uris.subList(from, Math.min(from + chunkSize, uris.size()));
+            chunks.add(CompletableFuture.supplyAsync(() -> postQuery(start, end, chunk, unique), chunkExecutor));
+        }
+        List<StatDto> stats = new ArrayList<>();
+        for (CompletableFuture<List<StatDto>> chunk : chunks) {
+            stats.addAll(StatRequestCollapser.join(chunk));
+        }
+        stats.sort(Comparator.comparing(StatDto::getHits).reversed());
+        return stats;
+    }
+
+    private List<StatDto> postQuery(LocalDateTime start, LocalDateTime end, List<String> uris, boolean unique) {
+        StatQueryDto query = StatQueryDto.builder()
+                .start(start)
+                .end(end)
+                .uris(uris)
+                .unique(unique)
+                .build();
+        return post("/stats/query", query, STAT_LIST);
+    }
+
+    private Map<String, Long> loadViews(List<String> uris, boolean unique) {
+        if (requestCollapser != null) {
+            return requestCollapser.getViews(uris, unique,
+                    (batch, batchUnique) -> call(() -> fetchViews(batch, batchUnique)));
+        }
+        return call(() -> fetchViews(uris, unique));
+    }
+
+    private Map<String, Long> fetchViews(List<String> uris, boolean unique) {
+        LocalDateTime now = LocalDateTime.now();
+        List<StatDto> stats = fetchStat(now.minusYears(VIEWS_HISTORY_YEARS).format(DATE_TIME_FORMAT),
+                now.format(DATE_TIME_FORMAT), uris, unique);
+        Map<String, Long> views = zeroViews(uris);
+        for (StatDto stat : stats) {
+            views.computeIfPresent(stat.getUri(), (uri, count) -> count + stat.getHits());
+        }
+        return views;
+    }
+
+    private <T> T call(Supplier<T> request) {
+        return circuitBreaker != null ? circuitBreaker.execute(request) : request.get();
+    }
+
+    private static Map<String, Long> zeroViews(List<String> uris) {
+        Map<String, Long> views = new HashMap<>();
+        for (String uri : uris) {
+            views.put(uri, 0L);
+        }
+        return views;
     }
 }
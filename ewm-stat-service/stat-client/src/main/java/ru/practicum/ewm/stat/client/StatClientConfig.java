@@ -0,0 +1,50 @@
+package ru.practicum.ewm.stat.client;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.httpcomponents.PoolingHttpClientConnectionManagerMetricsBinder;
+import org.apache.http.client.config.RequestConfig;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.impl.client.DefaultConnectionKeepAliveStrategy;
+import org.apache.http.impl.client.HttpClients;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.concurrent.TimeUnit;
+
+@Configuration
+@EnableConfigurationProperties(StatClientProperties.class)
+public class StatClientConfig {
+
+    private static final int VALIDATE_AFTER_INACTIVITY_MS = 2_000;
+
+    @Bean(destroyMethod = "close")
+    public CloseableHttpClient statHttpClient(StatClientProperties properties, MeterRegistry meterRegistry) {
+        StatClientProperties.Http http = properties.getHttp();
+        long keepAliveMillis = http.getKeepAliveMs();
+        PoolingHttpClientConnectionManager connectionManager = new PoolingHttpClientConnectionManager();
+        connectionManager.setMaxTotal(http.getMaxConnections());
+        connectionManager.setDefaultMaxPerRoute(http.getMaxConnections());
+        connectionManager.setValidateAfterInactivity(VALIDATE_AFTER_INACTIVITY_MS);
+        new PoolingHttpClientConnectionManagerMetricsBinder(connectionManager, "stat-service").bindTo(meterRegistry);
+        RequestConfig requestConfig = RequestConfig.custom()
+                .setConnectTimeout(http.getConnectTimeoutMs())
+                .setSocketTimeout(http.getReadTimeoutMs())
+                .setConnectionRequestTimeout(http.getPoolTimeoutMs())
+                .build();
+        return HttpClients.custom()
+                .setConnectionManager(connectionManager)
+                .setDefaultRequestConfig(requestConfig)
+                .setKeepAliveStrategy((response, context) -> Math.min(keepAliveMillis,
+                        positiveOr(DefaultConnectionKeepAliveStrategy.INSTANCE.getKeepAliveDuration(response, context),
+                                keepAliveMillis)))
+                .evictExpiredConnections()
+                .evictIdleConnections(keepAliveMillis, TimeUnit.MILLISECONDS)
+                .build();
+    }
+
+    private static long positiveOr(long value, long fallback) {
+        return value > 0 ? value : fallback;
+    }
+}
@@ -0,0 +1,94 @@
+package ru.practicum.ewm.stat.client;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.validation.annotation.Validated;
+
+import javax.validation.constraints.NotBlank;
+
+@Getter
+@Setter
+@Validated
+@ConfigurationProperties("stat-service")
+public class StatClientProperties {
+
+    @NotBlank
+    private String url;
+    private HitTransport transport = HitTransport.HTTP;
+    private final Http http = new Http();
+    private final Collector collector = new Collector();
+    private final Emitter emitter = new Emitter();
+    private final ViewsCache viewsCache = new ViewsCache();
+    private final Collapsing collapsing = new Collapsing();
+    private final StatsQuery statsQuery = new StatsQuery();
+    private final Breaker breaker = new Breaker();
+    private final ViewsFallback viewsFallback = new ViewsFallback();
+
+    @Getter
+    @Setter
+    public static class Http {
+        private int maxConnections = 100;
+        private int connectTimeoutMs = 1000;
+        private int readTimeoutMs = 2000;
+        private int poolTimeoutMs = 200;
+        private long keepAliveMs = 15000;
+    }
+
+    @Getter
+    @Setter
+    public static class Collector {
+        private String host = "localhost";
+        private int port = 9091;
+        private int connectTimeoutMs = 1000;
+    }
+
+    @Getter
+    @Setter
+    public static class Emitter {
+        private boolean enabled;
+        private int capacity = 10000;
+        private int batchSize = 500;
+        private long flushIntervalMs = 1000;
+        private long blockTimeoutMs = 50;
+        private long shutdownTimeoutMs = 5000;
+        private HitOverflowPolicy overflowPolicy = HitOverflowPolicy.DROP;
+    }
+
+    @Getter
+    @Setter
+    public static class ViewsCache {
+        private long ttlMs;
+        private int maxSize = 10000;
+    }
+
+    @Getter
+    @Setter
+    public static class Collapsing {
+        private boolean enabled;
+        private long windowMs = 5;
+        private int maxBatchSize = 100;
+    }
+
+    @Getter
+    @Setter
+    public static class StatsQuery {
+        private int postThreshold = 50;
+        private int chunkSize = 1000;
+        private int parallelism = 4;
+    }
+
+    @Getter
+    @Setter
+    public static class Breaker {
+        private boolean enabled;
+        private int failureThreshold = 5;
+        private long openMs = 10000;
+    }
+
+    @Getter
+    @Setter
+    public static class ViewsFallback {
+        private boolean enabled;
+    }
+}
@@ -0,0 +1,16 @@
+package ru.practicum.ewm.stat.client;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.experimental.UtilityClass;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+@UtilityClass
+public class StatCodec {
+
+    public static final MediaType SMILE = new MediaType("application", "x-jackson-smile");
+
+    public static final ObjectMapper SMILE_MAPPER = Jackson2ObjectMapperBuilder.smile().build();
+
+    public static final ObjectMapper JSON_MAPPER = Jackson2ObjectMapperBuilder.json().build();
+}
@@ -0,0 +1,144 @@
+package ru.practicum.ewm.stat.client;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import ru.practicum.ewm.stat.dto.StatDto;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiFunction;
+import java.util.function.Supplier;
+
+class StatRequestCollapser {
+
+    private final long windowNanos;
+    private final int maxBatchSize;
+    private final Map<List<Object>, CompletableFuture<List<StatDto>>> statsInFlight = new ConcurrentHashMap<>();
+    private final Map<List<Object>, CompletableFuture<Long>> viewsInFlight = new HashMap<>();
+    private final Map<Boolean, ViewBatch> pendingBatches = new HashMap<>();
+    private final Counter sharedRequests;
+    private final Counter batchedRequests;
+    private final DistributionSummary batchSize;
+
+    StatRequestCollapser(MeterRegistry meterRegistry, long windowMillis, int maxBatchSize) {
+        this.windowNanos = TimeUnit.MILLISECONDS.toNanos(windowMillis);
+        this.maxBatchSize = maxBatchSize;
+        this.sharedRequests = meterRegistry.counter("stat.client.collapser.requests", "result", "shared");
+        this.batchedRequests = meterRegistry.counter("stat.client.collapser.requests", "result", "batched");
+        this.batchSize = meterRegistry.summary("stat.client.collapser.batch.size");
+    }
+
+    List<StatDto> getStat(List<Object> key, Supplier<List<StatDto>> loader) {
+        CompletableFuture<List<StatDto>> future = new CompletableFuture<>();
+        CompletableFuture<List<StatDto>> existing = statsInFlight.putIfAbsent(key, future);
+        if (existing != null) {
+            sharedRequests.increment();
+            return join(existing);
+        }
+        try {
+            future.complete(loader.get());
+        } catch (RuntimeException e) {
+            future.completeExceptionally(e);
+        } finally {
+            statsInFlight.remove(key, future);
+        }
+        return join(future);
+    }
+
+    Map<String, Long> getViews(List<String> uris, boolean unique,
+                               BiFunction<List<String>, Boolean, Map<String, Long>> loader) {
+        Map<String, CompletableFuture<Long>> futures = new LinkedHashMap<>();
+        List<ViewBatch> leading = new ArrayList<>();
+        synchronized (this) {
+            for (String uri : new LinkedHashSet<>(uris)) {
+                List<Object> key = List.of(uri, unique);
+                CompletableFuture<Long> future = viewsInFlight.get(key);
+                if (future != null) {
+                    sharedRequests.increment();
+                } else {
+                    future = new CompletableFuture<>();
+                    viewsInFlight.put(key, future);
+                    ViewBatch batch = pendingBatches.get(unique);
+                    if (batch == null) {
+                        batch = new ViewBatch();
+                        pendingBatches.put(unique, batch);
+                        leading.add(batch);
+                    } else if (!leading.contains(batch)) {
+                        batchedRequests.increment();
+                    }
+                    batch.futures.put(uri, future);
+                    if (batch.futures.size() >= maxBatchSize) {
+                        pendingBatches.remove(unique);
+                        notifyAll();
+                    }
+                }
+                futures.put(uri, future);
+            }
+            if (!leading.isEmpty()) {
+                awaitWindow(leading.get(leading.size() - 1), unique);
+            }
+        }
+        for (ViewBatch batch : leading) {
+            load(batch, unique, loader);
+        }
+        Map<String, Long> views = new HashMap<>();
+        for (Map.Entry<String, CompletableFuture<Long>> entry : futures.entrySet()) {
+            views.put(entry.getKey(), join(entry.getValue()));
+        }
+        return views;
+    }
+
+    private void awaitWindow(ViewBatch batch, boolean unique) {
+        long deadline = System.nanoTime() + windowNanos;
+        long remaining = windowNanos;
+        try {
+            while (pendingBatches.get(unique) == batch && remaining > 0) {
+                TimeUnit.NANOSECONDS.timedWait(this, remaining);
+                remaining = deadline - System.nanoTime();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        pendingBatches.remove(unique, batch);
+    }
+
+    private void load(ViewBatch batch, boolean unique, BiFunction<List<String>, Boolean, Map<String, Long>> loader) {
+        List<String> uris = new ArrayList<>(batch.futures.keySet());
+        batchSize.record(uris.size());
+        try {
+            Map<String, Long> loaded = loader.apply(uris, unique);
+            batch.futures.forEach((uri, future) -> future.complete(loaded.getOrDefault(uri, 0L)));
+        } catch (RuntimeException e) {
+            batch.futures.values().forEach(future -> future.completeExceptionally(e));
+        } finally {
+            synchronized (this) {
+                batch.futures.forEach((uri, future) -> viewsInFlight.remove(List.of(uri, unique), future));
+            }
+        }
+    }
+
+    static <T> T join(CompletableFuture<T> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw e;
+        }
+    }
+
+    private static class ViewBatch {
+
+        private final Map<String, CompletableFuture<Long>> futures = new LinkedHashMap<>();
+    }
+}
@@ -0,0 +1,8 @@
+package ru.practicum.ewm.stat.client;
+
+public class StatServiceUnavailableException extends RuntimeException {
+
+    public StatServiceUnavailableException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,123 @@
+package ru.practicum.ewm.stat.client;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+class ViewCountCache {
+
+    private final long ttlNanos;
+    private final int maxSize;
+    private final Map<List<Object>, Entry> entries;
+    private final Counter hitCounter;
+    private final Counter missCounter;
+    private final Counter sizeEvictions;
+    private final Counter expiredCounter;
+
+    ViewCountCache(MeterRegistry meterRegistry, long ttlMillis, int maxSize) {
+        this.ttlNanos = TimeUnit.MILLISECONDS.toNanos(ttlMillis);
+        this.maxSize = maxSize;
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<List<Object>, Entry> eldest) {
+                if (size() <= ViewCountCache.this.maxSize) {
+                    return false;
+                }
+                sizeEvictions.increment();
+                return true;
+            }
+        };
+        this.hitCounter = meterRegistry.counter("stat.client.views.cache.requests", "result", "hit");
+        this.missCounter = meterRegistry.counter("stat.client.views.cache.requests", "result", "miss");
+        this.sizeEvictions = meterRegistry.counter("stat.client.views.cache.evictions", "cause", "size");
+        this.expiredCounter = meterRegistry.counter("stat.client.views.cache.expired");
+        meterRegistry.gauge("stat.client.views.cache.size", this, ViewCountCache::size);
+        meterRegistry.gauge("stat.client.views.cache.hit.ratio", this, ViewCountCache::hitRatio);
+    }
+
+    Map<String, Long> getAll(List<String> uris, boolean unique, Function<List<String>, Map<String, Long>> loader) {
+        Map<String, Long> views = new HashMap<>();
+        List<String> missing = new ArrayList<>();
+        long now = System.nanoTime();
+        synchronized (entries) {
+            for (String uri : new LinkedHashSet<>(uris)) {
+                List<Object> key = List.of(uri, unique);
+                Entry entry = entries.get(key);
+                if (entry != null && entry.expiresAt - now > 0) {
+                    views.put(uri, entry.views);
+                    continue;
+                }
+                if (entry != null) {
+                    expiredCounter.increment();
+                }
+                missing.add(uri);
+            }
+        }
+        hitCounter.increment(views.size());
+        missCounter.increment(missing.size());
+        if (missing.isEmpty()) {
+            return views;
+        }
+        Map<String, Long> loaded = loader.apply(missing);
+        long expiresAt = System.nanoTime() + ttlNanos;
+        synchronized (entries) {
+            for (String uri : missing) {
+                long count = loaded.get(uri);
+                entries.put(List.of(uri, unique), new Entry(count, expiresAt));
+                views.put(uri, count);
+            }
+        }
+        return views;
+    }
+
+    void invalidate(Collection<String> uris) {
+        synchronized (entries) {
+            for (String uri : uris) {
+                entries.remove(List.of(uri, true));
+                entries.remove(List.of(uri, false));
+            }
+        }
+    }
+
+    Map<String, Long> getLastKnown(List<String> uris, boolean unique) {
+        Map<String, Long> views = new HashMap<>();
+        synchronized (entries) {
+            for (String uri : uris) {
+                Entry entry = entries.get(List.of(uri, unique));
+                views.put(uri, entry == null ? 0L : entry.views);
+            }
+        }
+        return views;
+    }
+
+    private int size() {
+        synchronized (entries) {
+            return entries.size();
+        }
+    }
+
+    private double hitRatio() {
+        double total = hitCounter.count() + missCounter.count();
+        return total == 0 ? 0 : hitCounter.count() / total;
+    }
+
+    private static class Entry {
+
+        private final long views;
+        private final long expiresAt;
+
+        private Entry(long views, long expiresAt) {
+            this.views = views;
+            this.expiresAt = expiresAt;
+        }
+    }
+}
@@ -0,0 +1,86 @@
+package ru.practicum.ewm.stat.client;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.http.impl.client.HttpClients;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.web.client.RestTemplateBuilder;
+import org.springframework.http.HttpMethod;
+import org.springframework.test.web.client.ExpectedCount;
+import org.springframework.test.web.client.MockRestServiceServer;
+import org.springframework.web.client.HttpServerErrorException;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.springframework.test.web.client.match.MockRestRequestMatchers.method;
+import static org.springframework.test.web.client.response.MockRestResponseCreators.withServerError;
+
+class StatClientCollapsingTest {
+
+    private static final int CALLERS = 8;
+
+    private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final ExecutorService callers = Executors.newFixedThreadPool(CALLERS);
+
+    private StatClient statClient;
+    private MockRestServiceServer server;
+
+    @BeforeEach
+    void setUp() {
+        StatClientProperties properties = new StatClientProperties();
+        properties.setUrl("http://localhost:9090");
+        properties.getCollapsing().setEnabled(true);
+        properties.getCollapsing().setWindowMs(TimeUnit.SECONDS.toMillis(10));
+        properties.getCollapsing().setMaxBatchSize(CALLERS);
+        properties.getBreaker().setEnabled(true);
+        properties.getBreaker().setFailureThreshold(2);
+        properties.getBreaker().setOpenMs(TimeUnit.MINUTES.toMillis(1));
+        statClient = new StatClient(properties, HttpClients.createDefault(), new RestTemplateBuilder(), meterRegistry);
+        server = MockRestServiceServer.bindTo(statClient.rest).build();
+    }
+
+    @AfterEach
+    void tearDown() {
+        callers.shutdownNow();
+        statClient.close();
+    }
+
+    @Test
+    void sharedFailedLoadCountsAsOneBreakerFailure() throws InterruptedException {
+        server.expect(ExpectedCount.once(), method(HttpMethod.GET)).andRespond(withServerError());
+
+        List<Future<?>> results = new ArrayList<>();
+        for (int i = 0; i < CALLERS; i++) {
+            List<String> uris = List.of("/events/" + i);
+            results.add(callers.submit(() -> statClient.getViews(uris, false)));
+        }
+        for (Future<?> result : results) {
+            ExecutionException e = assertThrows(ExecutionException.class, () -> result.get(30, TimeUnit.SECONDS));
+            assertInstanceOf(HttpServerErrorException.class, e.getCause());
+        }
+        server.verify();
+        assertEquals(0, openedCount());
+
+        server.reset();
+        server.expect(ExpectedCount.once(), method(HttpMethod.GET)).andRespond(withServerError());
+        assertThrows(HttpServerErrorException.class,
+                () -> statClient.getStat("2020-01-01 00:00:00", "2030-01-01 00:00:00", List.of("/events/0"), false));
+        server.verify();
+        assertEquals(1, openedCount());
+    }
+
+    private double openedCount() {
+        return meterRegistry.counter("stat.client.breaker.opened").count();
+    }
+}
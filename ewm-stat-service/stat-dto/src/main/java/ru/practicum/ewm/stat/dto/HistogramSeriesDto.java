@@ -0,0 +1,14 @@
+package ru.practicum.ewm.stat.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class HistogramSeriesDto {
+    String app;
+    String uri;
+    long[] hits;
+}
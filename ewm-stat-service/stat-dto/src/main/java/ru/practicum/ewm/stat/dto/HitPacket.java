@@ -0,0 +1,44 @@
+package ru.practicum.ewm.stat.dto;
+
+import lombok.experimental.UtilityClass;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.ZoneOffset;
+
+@UtilityClass
+public class HitPacket {
+
+    public static final byte MAGIC = 0x48;
+    public static final byte VERSION = 1;
+    public static final int HEADER_SIZE = 16;
+    public static final int COUNT_OFFSET = 14;
+    public static final int MAX_SIZE = 1400;
+    public static final int MAX_FIELD_BYTES = 255;
+
+    public static void writeHeader(ByteBuffer buffer, long senderId, int sequence) {
+        buffer.put(MAGIC);
+        buffer.put(VERSION);
+        buffer.putLong(senderId);
+        buffer.putInt(sequence);
+        buffer.putShort((short) 0);
+    }
+
+    public static boolean writeHit(ByteBuffer buffer, HitDto hit) {
+        byte[] app = hit.getApp().getBytes(StandardCharsets.UTF_8);
+        byte[] uri = hit.getUri().getBytes(StandardCharsets.UTF_8);
+        byte[] ip = hit.getIp().getBytes(StandardCharsets.UTF_8);
+        if (app.length > MAX_FIELD_BYTES || uri.length > MAX_FIELD_BYTES || ip.length > MAX_FIELD_BYTES) {
+            throw new IllegalArgumentException("Слишком длинное поле хита: " + hit);
+        }
+        if (buffer.remaining() < Long.BYTES + 3 + app.length + uri.length + ip.length) {
+            return false;
+        }
+        buffer.putLong(hit.getTimestamp().toEpochSecond(ZoneOffset.UTC));
+        buffer.put((byte) app.length).put(app);
+        buffer.put((byte) uri.length).put(uri);
+        buffer.put((byte) ip.length).put(ip);
+        buffer.putShort(COUNT_OFFSET, (short) (buffer.getShort(COUNT_OFFSET) + 1));
+        return true;
+    }
+}
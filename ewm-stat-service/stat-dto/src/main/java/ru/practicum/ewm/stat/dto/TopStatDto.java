@@ -0,0 +1,15 @@
+package ru.practicum.ewm.stat.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class TopStatDto {
+    String app;
+    String uri;
+    Long hits;
+    Long error;
+}
@@ -1,39 +1,155 @@
 package ru.practicum.ewm.stat.service;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import ru.practicum.ewm.stat.dto.HistogramDto;
 import ru.practicum.ewm.stat.dto.HitDto;
+import ru.practicum.ewm.stat.dto.HitImportDto;
 import ru.practicum.ewm.stat.dto.StatDto;
+import ru.practicum.ewm.stat.dto.StatQueryDto;
+import ru.practicum.ewm.stat.dto.TopStatDto;
+import ru.practicum.ewm.stat.dto.TrendingStatDto;
+import ru.practicum.ewm.stat.service.model.RollupGranularity;
+import ru.practicum.ewm.stat.service.service.AsyncStatService;
+import ru.practicum.ewm.stat.service.service.HitFormat;
+import ru.practicum.ewm.stat.service.service.HitTransferService;
 import ru.practicum.ewm.stat.service.service.StatService;
+import ru.practicum.ewm.stat.service.service.TopHitsService;
 
+import javax.servlet.http.HttpServletRequest;
 import javax.validation.Valid;
+import javax.validation.constraints.Max;
+import javax.validation.constraints.Min;
+import javax.validation.constraints.NotEmpty;
+import javax.validation.constraints.Size;
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 @RestController
 @RequestMapping
+@Validated
 @RequiredArgsConstructor
 @Slf4j
 public class StatController {
 
+    private static final int MAX_BATCH_SIZE = 10_000;
+    private static final int MAX_TOP_SIZE = 1_000;
+    private static final String TEXT_CSV_VALUE = "text/csv";
+
     private final StatService service;
+    private final AsyncStatService asyncService;
+    private final HitTransferService hitTransferService;
+    private final ObjectMapper objectMapper;
 
     @PostMapping(path = "/hit")
     @ResponseStatus(value = HttpStatus.CREATED)
-    public HitDto createHit(@RequestBody @Valid HitDto hitDto) {
-        log.info("Сохранение запроса");
-        return service.createHit(hitDto);
+    public CompletableFuture<HitDto> createHit(@RequestBody @Valid HitDto hitDto) {
+        log.debug("Сохранение запроса");
+        return asyncService.createHit(hitDto);
+    }
+
+    @PostMapping(path = "/hits/batch")
+    @ResponseStatus(value = HttpStatus.CREATED)
+    public void createHits(@RequestBody @NotEmpty @Size(max = MAX_BATCH_SIZE) List<@Valid HitDto> hits) {
+        log.debug("Сохранение пакета запросов, размер {}", hits.size());
+        service.createHits(hits);
     }
 
     @GetMapping(path = "/stats")
-    public List<StatDto> getStat(@RequestParam(required = false) @DateTimeFormat(pattern = "yyyy-MM-dd HH:mm:ss") LocalDateTime start,
-                                 @RequestParam(required = false) @DateTimeFormat(pattern = "yyyy-MM-dd HH:mm:ss") LocalDateTime end,
-                                 @RequestParam(required = false) List<String> uris,
-                                 @RequestParam(defaultValue = "false") Boolean unique) {
+    public CompletableFuture<List<StatDto>> getStat(@RequestParam(required = false) @DateTimeFormat(pattern = "yyyy-MM-dd HH:mm:ss") LocalDateTime start,
+                                                    @RequestParam(required = false) @DateTimeFormat(pattern = "yyyy-MM-dd HH:mm:ss") LocalDateTime end,
+                                                    @RequestParam(required = false) List<String> uris,
+                                                    @RequestParam(defaultValue = "false") Boolean unique,
+                                                    @RequestParam(defaultValue = "false") Boolean approx) {
         log.info("Получение статистики");
-        return service.getStat(start, end, uris, unique);
+        return asyncService.getStat(start, end, uris, unique, approx);
+    }
+
+    @PostMapping(path = "/stats/query")
+    public CompletableFuture<List<StatDto>> queryStat(@RequestBody @Valid StatQueryDto query) {
+        log.info("Получение статистики по {} uri", query.getUris() == null ? 0 : query.getUris().size());
+        return asyncService.getStat(query.getStart(), query.getEnd(), query.getUris(), query.isUnique(),
+                query.isApprox());
+    }
+
+    @GetMapping(path = "/stats/top")
+    public List<TopStatDto> getTop(@RequestParam(defaultValue = "10") @Min(1) @Max(MAX_TOP_SIZE) Integer n,
+                                   @RequestParam(defaultValue = "60") @Min(1) @Max(TopHitsService.MAX_WINDOW_MINUTES) Integer window) {
+        log.info("Получение топа просмотров, n {}, окно {} мин", n, window);
+        return service.getTop(n, window);
+    }
+
+    @GetMapping(path = "/stats/trending")
+    public List<TrendingStatDto> getTrending(@RequestParam(required = false) String prefix,
+                                             @RequestParam(defaultValue = "10") @Min(1) @Max(MAX_TOP_SIZE) Integer n) {
+        log.info("Получение трендов, префикс {}, n {}", prefix, n);
+        return service.getTrending(prefix, n);
+    }
+
+    @GetMapping(path = "/stats/histogram")
+    public HistogramDto getHistogram(@RequestParam(required = false) @DateTimeFormat(pattern = "yyyy-MM-dd HH:mm:ss") LocalDateTime start,
+                                     @RequestParam(required = false) @DateTimeFormat(pattern = "yyyy-MM-dd HH:mm:ss") LocalDateTime end,
+                                     @RequestParam(required = false) List<String> uris,
+                                     @RequestParam(defaultValue = "HOUR") RollupGranularity interval,
+                                     @RequestParam(defaultValue = "false") Boolean unique) {
+        log.info("Получение гистограммы просмотров, интервал {}", interval);
+        return service.getHistogram(start, end, uris, interval, unique);
+    }
+
+    @GetMapping(path = "/stats", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> streamStat(@RequestParam(required = false) @DateTimeFormat(pattern = "yyyy-MM-dd HH:mm:ss") LocalDateTime start,
+                                                            @RequestParam(required = false) @DateTimeFormat(pattern = "yyyy-MM-dd HH:mm:ss") LocalDateTime end,
+                                                            @RequestParam(required = false) List<String> uris,
+                                                            @RequestParam(defaultValue = "false") Boolean unique) {
+        log.info("Потоковое получение статистики");
+        service.checkDate(start, end);
+        StreamingResponseBody body = out -> service.streamStat(start, end, uris, unique, stat -> {
+            try {
+                out.write(objectMapper.writeValueAsBytes(stat));
+                out.write('\n');
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .body(body);
+    }
+
+    @PostMapping(path = "/admin/hits/import", consumes = TEXT_CSV_VALUE)
+    @ResponseStatus(value = HttpStatus.CREATED)
+    public HitImportDto importHitsCsv(HttpServletRequest request) throws IOException {
+        log.info("Импорт хитов из CSV");
+        return hitTransferService.importHits(request.getInputStream(), HitFormat.CSV);
+    }
+
+    @PostMapping(path = "/admin/hits/import", consumes = MediaType.APPLICATION_NDJSON_VALUE)
+    @ResponseStatus(value = HttpStatus.CREATED)
+    public HitImportDto importHitsNdjson(HttpServletRequest request) throws IOException {
+        log.info("Импорт хитов из NDJSON");
+        return hitTransferService.importHits(request.getInputStream(), HitFormat.NDJSON);
+    }
+
+    @GetMapping(path = "/admin/hits/export")
+    public ResponseEntity<StreamingResponseBody> exportHits(@RequestParam(required = false) @DateTimeFormat(pattern = "yyyy-MM-dd HH:mm:ss") LocalDateTime start,
+                                                            @RequestParam(required = false) @DateTimeFormat(pattern = "yyyy-MM-dd HH:mm:ss") LocalDateTime end,
+                                                            @RequestParam(defaultValue = "NDJSON") HitFormat format) {
+        log.info("Экспорт хитов в {} с {} по {}", format, start, end);
+        service.checkDate(start, end);
+        StreamingResponseBody body = out -> hitTransferService.exportHits(start, end, format, out);
+        return ResponseEntity.ok()
+                .contentType(format == HitFormat.CSV ? MediaType.parseMediaType(TEXT_CSV_VALUE) : MediaType.APPLICATION_NDJSON)
+                .body(body);
     }
 }
@@ -0,0 +1,36 @@
+package ru.practicum.ewm.stat.service.archive;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.TreeMap;
+
+@Repository
+public class ArchiveSegmentRepository {
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public ArchiveSegmentRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    public Map<String, LocalDateTime> findAll() {
+        Map<String, LocalDateTime> segments = new TreeMap<>();
+        jdbcTemplate.query("SELECT name, archived_until FROM hit_archive_segments", rs -> {
+            segments.put(rs.getString("name"), rs.getTimestamp("archived_until").toLocalDateTime());
+        });
+        return segments;
+    }
+
+    public void insert(String name, LocalDateTime archivedUntil) {
+        jdbcTemplate.update("INSERT INTO hit_archive_segments (name, archived_until) VALUES (?, ?)",
+                name, Timestamp.valueOf(archivedUntil));
+    }
+
+    public void delete(String name) {
+        jdbcTemplate.update("DELETE FROM hit_archive_segments WHERE name = ?", name);
+    }
+}
@@ -0,0 +1,261 @@
+package ru.practicum.ewm.stat.service.archive;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import ru.practicum.ewm.stat.service.model.Hit;
+import ru.practicum.ewm.stat.service.model.RollupGranularity;
+import ru.practicum.ewm.stat.service.sketch.LongHashSet;
+
+import javax.annotation.PostConstruct;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.*;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+@Slf4j
+@Component
+public class HitArchive {
+
+    private static final String SEGMENT_PREFIX = "hits-";
+    private static final String SEGMENT_SUFFIX = ".seg";
+    private static final String PENDING_SUFFIX = ".pending";
+    private static final String MANIFEST = "archive.properties";
+    private static final String ARCHIVED_UNTIL = "archived-until";
+
+    private final ArchiveSegmentRepository segmentRepository;
+    private final boolean enabled;
+    private final Path directory;
+    private final ConcurrentNavigableMap<String, Segment> segments = new ConcurrentSkipListMap<>();
+    private volatile long archivedUntil = Long.MIN_VALUE;
+
+    public HitArchive(ArchiveSegmentRepository segmentRepository,
+                      MeterRegistry meterRegistry,
+                      @Value("${stat.archive.enabled:false}") boolean enabled,
+                      @Value("${stat.archive.directory:archive}") String directory) {
+        this.segmentRepository = segmentRepository;
+        this.enabled = enabled;
+        this.directory = Path.of(directory);
+        meterRegistry.gauge("stat.archive.segments", segments, Map::size);
+        meterRegistry.gauge("stat.archive.rows", this, HitArchive::rows);
+    }
+
+    @PostConstruct
+    public void load() throws IOException {
+        if (!enabled) {
+            return;
+        }
+        Files.createDirectories(directory);
+        Path manifest = directory.resolve(MANIFEST);
+        if (Files.exists(manifest)) {
+            Properties properties = new Properties();
+            try (BufferedReader reader = Files.newBufferedReader(manifest)) {
+                properties.load(reader);
+            }
+            archivedUntil = Long.parseLong(properties.getProperty(ARCHIVED_UNTIL));
+        }
+        List<Path> pending = new ArrayList<>();
+        try (Stream<Path> files = Files.list(directory)) {
+            for (Path file : (Iterable<Path>) files::iterator) {
+                String name = file.getFileName().toString();
+                if (name.startsWith(SEGMENT_PREFIX) && name.endsWith(SEGMENT_SUFFIX)) {
+                    segments.put(name, Segment.open(file));
+                } else if (name.startsWith(SEGMENT_PREFIX) && name.endsWith(PENDING_SUFFIX)) {
+                    pending.add(file);
+                }
+            }
+        }
+        recover(pending);
+        log.info("Загружено {} сегментов архива, в архиве запросы до {}", segments.size(), getArchivedUntil());
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public boolean reaches(LocalDateTime start) {
+        return enabled && toSecond(start) < archivedUntil;
+    }
+
+    public LocalDateTime getArchivedUntil() {
+        return archivedUntil == Long.MIN_VALUE ? null : LocalDateTime.ofEpochSecond(archivedUntil, 0, ZoneOffset.UTC);
+    }
+
+    public Map<List<String>, Long> countHits(LocalDateTime start, LocalDateTime end, List<String> uris) {
+        Map<List<String>, Long> hits = new HashMap<>();
+        long from = toSecond(start);
+        long to = Math.min(toSecond(end), archivedUntil - 1);
+        Set<String> uriSet = uris == null || uris.isEmpty() ? null : new HashSet<>(uris);
+        for (Segment segment : segments.values()) {
+            if (segment.overlaps(from, to)) {
+                segment.count(from, to, uriSet, hits);
+            }
+        }
+        return hits;
+    }
+
+    public Map<List<String>, LongHashSet> collectVisitors(LocalDateTime start, LocalDateTime end, List<String> uris) {
+        Map<List<String>, LongHashSet> visitors = new HashMap<>();
+        long from = toSecond(start);
+        long to = Math.min(toSecond(end), archivedUntil - 1);
+        Set<String> uriSet = uris == null || uris.isEmpty() ? null : new HashSet<>(uris);
+        for (Segment segment : segments.values()) {
+            if (segment.overlaps(from, to)) {
+                segment.collectVisitors(from, to, uriSet, visitors);
+            }
+        }
+        return visitors;
+    }
+
+    public Map<LocalDateTime, Map<List<String>, LongHashSet>> collectVisitors(RollupGranularity granularity,
+                                                                             LocalDateTime start, LocalDateTime end,
+                                                                             List<String> uris) {
+        Map<Long, Map<List<String>, LongHashSet>> buckets = new HashMap<>();
+        long from = toSecond(start);
+        long to = Math.min(toSecond(end), archivedUntil - 1);
+        Set<String> uriSet = uris == null || uris.isEmpty() ? null : new HashSet<>(uris);
+        for (Segment segment : segments.values()) {
+            if (segment.overlaps(from, to)) {
+                segment.collectVisitors(from, to, uriSet,
+                        time -> buckets.computeIfAbsent(granularity.floor(time), bucket -> new HashMap<>()));
+            }
+        }
+        Map<LocalDateTime, Map<List<String>, LongHashSet>> visitors = new HashMap<>();
+        buckets.forEach((bucket, counts) -> visitors.put(LocalDateTime.ofEpochSecond(bucket, 0, ZoneOffset.UTC), counts));
+        return visitors;
+    }
+
+    public void exportHits(LocalDateTime from, LocalDateTime until, Consumer<Hit> consumer) {
+        if (!reaches(from)) {
+            return;
+        }
+        long start = toSecond(from);
+        long to = Math.min(toSecond(until) - 1, archivedUntil - 1);
+        for (Segment segment : segments.values()) {
+            if (segment.overlaps(start, to)) {
+                segment.forEach(start, to, consumer);
+            }
+        }
+    }
+
+    public Path writePending(LocalDate day, Consumer<Consumer<Hit>> hits) {
+        Path path = directory.resolve(SEGMENT_PREFIX + day + "-" + System.currentTimeMillis() + SEGMENT_SUFFIX
+                + PENDING_SUFFIX);
+        SegmentWriter writer = new SegmentWriter();
+        hits.accept(writer::add);
+        try {
+            writer.write(path);
+            syncDirectory();
+        } catch (IOException e) {
+            discard(path);
+            throw new UncheckedIOException("Не удалось записать сегмент архива " + path, e);
+        }
+        return path;
+    }
+
+    public void commit(Path pending, LocalDateTime until) {
+        segmentRepository.insert(segmentName(pending), until);
+    }
+
+    public Path publish(Path pending, LocalDateTime until) {
+        String name = segmentName(pending);
+        Path path = pending.resolveSibling(name);
+        try {
+            Files.move(pending, path, StandardCopyOption.ATOMIC_MOVE);
+            syncDirectory();
+            segments.put(name, Segment.open(path));
+        } catch (IOException e) {
+            throw new UncheckedIOException("Не удалось опубликовать сегмент архива " + path, e);
+        }
+        advance(until);
+        segmentRepository.delete(name);
+        return path;
+    }
+
+    public void discard(Path pending) {
+        try {
+            Files.deleteIfExists(pending);
+        } catch (IOException e) {
+            log.warn("Не удалось удалить сегмент архива {}: {}", pending, e.getMessage());
+        }
+    }
+
+    public synchronized void advance(LocalDateTime until) {
+        long second = toSecond(until);
+        if (second <= archivedUntil) {
+            return;
+        }
+        Properties properties = new Properties();
+        properties.setProperty(ARCHIVED_UNTIL, String.valueOf(second));
+        Path manifest = directory.resolve(MANIFEST);
+        Path temp = directory.resolve(MANIFEST + ".tmp");
+        try {
+            StringWriter text = new StringWriter();
+            properties.store(text, null);
+            try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                    StandardOpenOption.TRUNCATE_EXISTING)) {
+                channel.write(ByteBuffer.wrap(text.toString().getBytes(StandardCharsets.ISO_8859_1)));
+                channel.force(true);
+            }
+            Files.move(temp, manifest, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            syncDirectory();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Не удалось обновить манифест архива " + manifest, e);
+        }
+        archivedUntil = second;
+    }
+
+    private void recover(List<Path> pending) {
+        Map<String, LocalDateTime> committed = segmentRepository.findAll();
+        for (Path file : pending) {
+            String name = segmentName(file);
+            if (committed.containsKey(name)) {
+                publish(file, committed.remove(name));
+                log.warn("Опубликован сегмент архива {}, записанный до перезапуска", name);
+            } else {
+                discard(file);
+                log.warn("Удалён сегмент архива {}: перенос запросов не был завершён", name);
+            }
+        }
+        committed.forEach((name, until) -> {
+            if (segments.containsKey(name)) {
+                advance(until);
+                segmentRepository.delete(name);
+            } else {
+                log.error("Сегмент архива {} с запросами до {} не найден в {}", name, until, directory);
+            }
+        });
+    }
+
+    private void syncDirectory() throws IOException {
+        try (FileChannel channel = FileChannel.open(directory, StandardOpenOption.READ)) {
+            channel.force(true);
+        }
+    }
+
+    private double rows() {
+        return segments.values().stream().mapToLong(Segment::getRows).sum();
+    }
+
+    private static String segmentName(Path pending) {
+        String name = pending.getFileName().toString();
+        return name.substring(0, name.length() - PENDING_SUFFIX.length());
+    }
+
+    private static long toSecond(LocalDateTime time) {
+        return time.toEpochSecond(ZoneOffset.UTC);
+    }
+}
@@ -0,0 +1,209 @@
+package ru.practicum.ewm.stat.service.archive;
+
+import ru.practicum.ewm.stat.service.model.Hit;
+import ru.practicum.ewm.stat.service.sketch.HyperLogLog;
+import ru.practicum.ewm.stat.service.sketch.LongHashSet;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.function.LongFunction;
+
+class Segment {
+
+    private final MappedByteBuffer buffer;
+    private final long minTime;
+    private final long maxTime;
+    private final int rows;
+    private final String[] names;
+    private final String[] ips;
+    private final long[] ipHashes;
+    private final Series[] series;
+    private final int timeColumn;
+    private final int ipColumn;
+
+    private Segment(Path path, MappedByteBuffer buffer) {
+        this.buffer = buffer;
+        ByteBuffer header = buffer.duplicate();
+        if (header.getInt() != SegmentWriter.MAGIC || header.getInt() != SegmentWriter.VERSION) {
+            throw new IllegalStateException("Неизвестный формат сегмента архива " + path);
+        }
+        minTime = header.getLong();
+        maxTime = header.getLong();
+        rows = header.getInt();
+        names = readStrings(header);
+        ips = readStrings(header);
+        ipHashes = new long[ips.length];
+        for (int i = 0; i < ips.length; i++) {
+            ipHashes[i] = HyperLogLog.hash(ips[i]);
+        }
+        series = new Series[header.getInt()];
+        for (int i = 0; i < series.length; i++) {
+            series[i] = new Series(names[header.getInt()], names[header.getInt()], header.getLong(),
+                    header.getLong(), header.getInt(), header.getInt(), header.getInt());
+        }
+        int timeLength = header.getInt();
+        timeColumn = header.position();
+        header.position(timeColumn + timeLength);
+        header.getInt();
+        ipColumn = header.position();
+    }
+
+    static Segment open(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            return new Segment(path, channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+        }
+    }
+
+    int getRows() {
+        return rows;
+    }
+
+    boolean overlaps(long from, long to) {
+        return minTime <= to && maxTime >= from;
+    }
+
+    void count(long from, long to, Set<String> uris, Map<List<String>, Long> hits) {
+        ByteBuffer column = buffer.duplicate();
+        for (Series entry : series) {
+            if (!entry.matches(from, to, uris)) {
+                continue;
+            }
+            column.position(timeColumn + entry.timeOffset);
+            long time = entry.minTime;
+            long count = 0;
+            for (int i = 0; i < entry.rows; i++) {
+                time += readVarLong(column);
+                if (time > to) {
+                    break;
+                }
+                if (time >= from) {
+                    count++;
+                }
+            }
+            if (count > 0) {
+                hits.merge(List.of(entry.app, entry.uri), count, Long::sum);
+            }
+        }
+    }
+
+    void collectVisitors(long from, long to, Set<String> uris, Map<List<String>, LongHashSet> visitors) {
+        collectVisitors(from, to, uris, time -> visitors);
+    }
+
+    void collectVisitors(long from, long to, Set<String> uris,
+                         LongFunction<Map<List<String>, LongHashSet>> visitorsAt) {
+        ByteBuffer times = buffer.duplicate();
+        ByteBuffer ips = buffer.duplicate();
+        for (Series entry : series) {
+            if (!entry.matches(from, to, uris)) {
+                continue;
+            }
+            times.position(timeColumn + entry.timeOffset);
+            ips.position(ipColumn + entry.ipOffset);
+            long time = entry.minTime;
+            Map<List<String>, LongHashSet> visitors = null;
+            LongHashSet set = null;
+            for (int i = 0; i < entry.rows; i++) {
+                time += readVarLong(times);
+                int ip = (int) readVarLong(ips);
+                if (time > to) {
+                    break;
+                }
+                if (time >= from) {
+                    Map<List<String>, LongHashSet> target = visitorsAt.apply(time);
+                    if (target != visitors) {
+                        visitors = target;
+                        set = visitors.computeIfAbsent(List.of(entry.app, entry.uri), key -> new LongHashSet());
+                    }
+                    set.add(ipHashes[ip]);
+                }
+            }
+        }
+    }
+
+    void forEach(long from, long to, Consumer<Hit> consumer) {
+        ByteBuffer times = buffer.duplicate();
+        ByteBuffer ipIndices = buffer.duplicate();
+        for (Series entry : series) {
+            if (!entry.matches(from, to, null)) {
+                continue;
+            }
+            times.position(timeColumn + entry.timeOffset);
+            ipIndices.position(ipColumn + entry.ipOffset);
+            long time = entry.minTime;
+            for (int i = 0; i < entry.rows; i++) {
+                time += readVarLong(times);
+                int ip = (int) readVarLong(ipIndices);
+                if (time > to) {
+                    break;
+                }
+                if (time >= from) {
+                    consumer.accept(Hit.builder()
+                            .app(entry.app)
+                            .uri(entry.uri)
+                            .ip(ips[ip])
+                            .timestamp(LocalDateTime.ofEpochSecond(time, 0, ZoneOffset.UTC))
+                            .build());
+                }
+            }
+        }
+    }
+
+    private static String[] readStrings(ByteBuffer buffer) {
+        String[] values = new String[buffer.getInt()];
+        for (int i = 0; i < values.length; i++) {
+            byte[] bytes = new byte[Short.toUnsignedInt(buffer.getShort())];
+            buffer.get(bytes);
+            values[i] = new String(bytes, StandardCharsets.UTF_8);
+        }
+        return values;
+    }
+
+    private static long readVarLong(ByteBuffer buffer) {
+        long value = 0;
+        int shift = 0;
+        byte b;
+        do {
+            b = buffer.get();
+            value |= (long) (b & 0x7F) << shift;
+            shift += 7;
+        } while (b < 0);
+        return value;
+    }
+
+    private static class Series {
+
+        private final String app;
+        private final String uri;
+        private final long minTime;
+        private final long maxTime;
+        private final int rows;
+        private final int timeOffset;
+        private final int ipOffset;
+
+        private Series(String app, String uri, long minTime, long maxTime, int rows, int timeOffset, int ipOffset) {
+            this.app = app;
+            this.uri = uri;
+            this.minTime = minTime;
+            this.maxTime = maxTime;
+            this.rows = rows;
+            this.timeOffset = timeOffset;
+            this.ipOffset = ipOffset;
+        }
+
+        private boolean matches(long from, long to, Set<String> uris) {
+            return minTime <= to && maxTime >= from && (uris == null || uris.contains(uri));
+        }
+    }
+}
@@ -0,0 +1,138 @@
+package ru.practicum.ewm.stat.service.archive;
+
+import ru.practicum.ewm.stat.service.model.Hit;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.ZoneOffset;
+import java.util.*;
+
+class SegmentWriter {
+
+    static final int MAGIC = 0x45574D48;
+    static final int VERSION = 1;
+
+    private final Map<String, Integer> names = new LinkedHashMap<>();
+    private final Map<String, Integer> ips = new LinkedHashMap<>();
+    private final List<String> nameList = new ArrayList<>();
+    private int[] apps = new int[1024];
+    private int[] uris = new int[1024];
+    private int[] ipIndexes = new int[1024];
+    private long[] seconds = new long[1024];
+    private int size;
+
+    void add(Hit hit) {
+        if (size == seconds.length) {
+            int capacity = size * 2;
+            apps = Arrays.copyOf(apps, capacity);
+            uris = Arrays.copyOf(uris, capacity);
+            ipIndexes = Arrays.copyOf(ipIndexes, capacity);
+            seconds = Arrays.copyOf(seconds, capacity);
+        }
+        apps[size] = name(hit.getApp());
+        uris[size] = name(hit.getUri());
+        ipIndexes[size] = ips.computeIfAbsent(hit.getIp(), ip -> ips.size());
+        seconds[size] = toSecond(hit);
+        size++;
+    }
+
+    int size() {
+        return size;
+    }
+
+    void write(Path path) throws IOException {
+        Integer[] order = new Integer[size];
+        for (int i = 0; i < size; i++) {
+            order[i] = i;
+        }
+        Arrays.sort(order, Comparator
+                .<Integer, String>comparing(i -> nameList.get(apps[i]))
+                .thenComparing(i -> nameList.get(uris[i]))
+                .thenComparingLong(i -> seconds[i]));
+        ByteArrayOutputStream series = new ByteArrayOutputStream();
+        DataOutputStream seriesOut = new DataOutputStream(series);
+        ByteArrayOutputStream times = new ByteArrayOutputStream();
+        ByteArrayOutputStream ipColumn = new ByteArrayOutputStream();
+        int seriesCount = 0;
+        long minTime = Long.MAX_VALUE;
+        long maxTime = Long.MIN_VALUE;
+        int from = 0;
+        while (from < size) {
+            int first = order[from];
+            int to = from + 1;
+            while (to < size && apps[order[to]] == apps[first] && uris[order[to]] == uris[first]) {
+                to++;
+            }
+            long seriesMin = seconds[first];
+            long seriesMax = seconds[order[to - 1]];
+            seriesOut.writeInt(apps[first]);
+            seriesOut.writeInt(uris[first]);
+            seriesOut.writeLong(seriesMin);
+            seriesOut.writeLong(seriesMax);
+            seriesOut.writeInt(to - from);
+            seriesOut.writeInt(times.size());
+            seriesOut.writeInt(ipColumn.size());
+            long previous = seriesMin;
+            for (int i = from; i < to; i++) {
+                int row = order[i];
+                writeVarLong(times, seconds[row] - previous);
+                previous = seconds[row];
+                writeVarLong(ipColumn, ipIndexes[row]);
+            }
+            minTime = Math.min(minTime, seriesMin);
+            maxTime = Math.max(maxTime, seriesMax);
+            seriesCount++;
+            from = to;
+        }
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE)) {
+            DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Channels.newOutputStream(channel)));
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeLong(minTime);
+            out.writeLong(maxTime);
+            out.writeInt(size);
+            writeStrings(out, names.keySet());
+            writeStrings(out, ips.keySet());
+            out.writeInt(seriesCount);
+            series.writeTo(out);
+            out.writeInt(times.size());
+            times.writeTo(out);
+            out.writeInt(ipColumn.size());
+            ipColumn.writeTo(out);
+            out.flush();
+            channel.force(true);
+        }
+    }
+
+    private int name(String value) {
+        return names.computeIfAbsent(value, name -> {
+            nameList.add(name);
+            return nameList.size() - 1;
+        });
+    }
+
+    private static long toSecond(Hit hit) {
+        return hit.getTimestamp().toEpochSecond(ZoneOffset.UTC);
+    }
+
+    private static void writeStrings(DataOutputStream out, Collection<String> values) throws IOException {
+        out.writeInt(values.size());
+        for (String value : values) {
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            out.writeShort(bytes.length);
+            out.write(bytes);
+        }
+    }
+
+    private static void writeVarLong(ByteArrayOutputStream out, long value) {
+        while ((value & ~0x7FL) != 0) {
+            out.write((int) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        out.write((int) value);
+    }
+}
@@ -0,0 +1,235 @@
+package ru.practicum.ewm.stat.service.collector;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import ru.practicum.ewm.stat.service.exception.HitBufferOverflowException;
+import ru.practicum.ewm.stat.service.model.Hit;
+import ru.practicum.ewm.stat.service.service.HitWriteBehindBuffer;
+import ru.practicum.ewm.stat.service.service.HitWriter;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.StandardSocketOptions;
+import java.nio.ByteBuffer;
+import java.nio.channels.*;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+@Slf4j
+@Component
+public class HitCollector {
+
+    private static final int LENGTH_PREFIX_SIZE = Short.BYTES;
+    private static final int STREAM_BUFFER_SIZE = LENGTH_PREFIX_SIZE + 0xFFFF;
+
+    private final HitWriter hitWriter;
+    private final HitWriteBehindBuffer hitBuffer;
+    private final MeterRegistry meterRegistry;
+    private final boolean enabled;
+    private final int udpPort;
+    private final int tcpPort;
+    private final int receiveBufferBytes;
+    private final int ingestQueueCapacity;
+    private final long shutdownTimeoutMillis;
+    private final HitPacketDecoder decoder = new HitPacketDecoder();
+    private final ByteBuffer datagram = ByteBuffer.allocate(0xFFFF);
+    private final List<Hit> received = new ArrayList<>();
+
+    private Selector selector;
+    private DatagramChannel udpChannel;
+    private ServerSocketChannel tcpChannel;
+    private Counter udpReceived;
+    private Counter tcpReceived;
+    private Counter parseErrors;
+    private Counter lostPackets;
+    private Counter droppedHits;
+    private Thread receiver;
+    private ThreadPoolExecutor ingester;
+    private volatile boolean running;
+
+    public HitCollector(HitWriter hitWriter,
+                        HitWriteBehindBuffer hitBuffer,
+                        MeterRegistry meterRegistry,
+                        @Value("${stat.collector.enabled:false}") boolean enabled,
+                        @Value("${stat.collector.udp-port:9091}") int udpPort,
+                        @Value("${stat.collector.tcp-port:9091}") int tcpPort,
+                        @Value("${stat.collector.receive-buffer-bytes:4194304}") int receiveBufferBytes,
+                        @Value("${stat.collector.ingest-queue-capacity:64}") int ingestQueueCapacity,
+                        @Value("${stat.collector.shutdown-timeout-ms:5000}") long shutdownTimeoutMillis) {
+        this.hitWriter = hitWriter;
+        this.hitBuffer = hitBuffer;
+        this.meterRegistry = meterRegistry;
+        this.enabled = enabled;
+        this.udpPort = udpPort;
+        this.tcpPort = tcpPort;
+        this.receiveBufferBytes = receiveBufferBytes;
+        this.ingestQueueCapacity = ingestQueueCapacity;
+        this.shutdownTimeoutMillis = shutdownTimeoutMillis;
+    }
+
+    @PostConstruct
+    public void start() throws IOException {
+        if (!enabled) {
+            return;
+        }
+        udpReceived = meterRegistry.counter("stat.collector.received", "transport", "udp");
+        tcpReceived = meterRegistry.counter("stat.collector.received", "transport", "tcp");
+        parseErrors = meterRegistry.counter("stat.collector.parse.errors");
+        lostPackets = meterRegistry.counter("stat.collector.lost.packets");
+        droppedHits = meterRegistry.counter("stat.collector.dropped");
+        selector = Selector.open();
+        udpChannel = DatagramChannel.open();
+        udpChannel.setOption(StandardSocketOptions.SO_RCVBUF, receiveBufferBytes);
+        udpChannel.bind(new InetSocketAddress(udpPort));
+        udpChannel.configureBlocking(false);
+        udpChannel.register(selector, SelectionKey.OP_READ);
+        tcpChannel = ServerSocketChannel.open();
+        tcpChannel.bind(new InetSocketAddress(tcpPort));
+        tcpChannel.configureBlocking(false);
+        tcpChannel.register(selector, SelectionKey.OP_ACCEPT);
+        ingester = new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(ingestQueueCapacity), runnable -> new Thread(runnable, "hit-collector-ingest"));
+        meterRegistry.gauge("stat.collector.ingest.depth", ingester.getQueue(), BlockingQueue::size);
+        running = true;
+        receiver = new Thread(this::receiveLoop, "hit-collector");
+        receiver.start();
+        log.info("Приём хитов по UDP на порту {} и по TCP на порту {} включён", udpPort, tcpPort);
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException, IOException {
+        if (!enabled) {
+            return;
+        }
+        running = false;
+        selector.wakeup();
+        receiver.join();
+        for (SelectionKey key : selector.keys()) {
+            key.channel().close();
+        }
+        selector.close();
+        ingester.shutdown();
+        if (!ingester.awaitTermination(shutdownTimeoutMillis, TimeUnit.MILLISECONDS)) {
+            log.warn("Приём хитов остановлен, не сохранено пакетов: {}", ingester.shutdownNow().size());
+        }
+        log.info("Приём хитов по UDP и TCP остановлен");
+    }
+
+    private void receiveLoop() {
+        while (running) {
+            try {
+                selector.select();
+                Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+                while (keys.hasNext()) {
+                    SelectionKey key = keys.next();
+                    keys.remove();
+                    if (!key.isValid()) {
+                        continue;
+                    }
+                    if (key.isAcceptable()) {
+                        accept();
+                    } else if (key.channel() == udpChannel) {
+                        receiveDatagrams();
+                    } else {
+                        receiveStream(key);
+                    }
+                }
+                parseErrors.increment(decoder.drainParseErrors());
+                lostPackets.increment(decoder.drainLostPackets());
+                if (!received.isEmpty()) {
+                    ingest();
+                }
+            } catch (IOException | RuntimeException e) {
+                log.error("Ошибка приёма хитов", e);
+            }
+        }
+    }
+
+    private void accept() throws IOException {
+        SocketChannel channel = tcpChannel.accept();
+        if (channel == null) {
+            return;
+        }
+        channel.configureBlocking(false);
+        channel.register(selector, SelectionKey.OP_READ, ByteBuffer.allocate(STREAM_BUFFER_SIZE));
+    }
+
+    private void receiveDatagrams() throws IOException {
+        while (true) {
+            datagram.clear();
+            if (udpChannel.receive(datagram) == null) {
+                return;
+            }
+            datagram.flip();
+            udpReceived.increment(decoder.decode(datagram, received, true));
+        }
+    }
+
+    private void receiveStream(SelectionKey key) throws IOException {
+        SocketChannel channel = (SocketChannel) key.channel();
+        ByteBuffer buffer = (ByteBuffer) key.attachment();
+        int read;
+        try {
+            read = channel.read(buffer);
+        } catch (IOException e) {
+            read = -1;
+        }
+        buffer.flip();
+        while (buffer.remaining() >= LENGTH_PREFIX_SIZE) {
+            int length = Short.toUnsignedInt(buffer.getShort(buffer.position()));
+            if (buffer.remaining() < LENGTH_PREFIX_SIZE + length) {
+                break;
+            }
+            int end = buffer.position() + LENGTH_PREFIX_SIZE + length;
+            ByteBuffer packet = buffer.duplicate();
+            packet.position(buffer.position() + LENGTH_PREFIX_SIZE).limit(end);
+            tcpReceived.increment(decoder.decode(packet.slice(), received, false));
+            buffer.position(end);
+        }
+        buffer.compact();
+        if (read < 0) {
+            key.cancel();
+            channel.close();
+        }
+    }
+
+    private void ingest() {
+        List<Hit> hits = new ArrayList<>(received);
+        received.clear();
+        try {
+            ingester.execute(() -> write(hits));
+        } catch (RejectedExecutionException e) {
+            droppedHits.increment(hits.size());
+        }
+    }
+
+    private void write(List<Hit> hits) {
+        if (hitBuffer.isEnabled()) {
+            for (Hit hit : hits) {
+                try {
+                    hitBuffer.add(hit);
+                } catch (HitBufferOverflowException e) {
+                    droppedHits.increment();
+                }
+            }
+            return;
+        }
+        try {
+            hitWriter.writeAll(hits);
+        } catch (RuntimeException e) {
+            droppedHits.increment(hits.size());
+            log.warn("Не удалось сохранить {} хитов: {}", hits.size(), e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,110 @@
+package ru.practicum.ewm.stat.service.collector;
+
+import ru.practicum.ewm.stat.dto.HitPacket;
+import ru.practicum.ewm.stat.service.dictionary.IpAddressCodec;
+import ru.practicum.ewm.stat.service.model.Hit;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+class HitPacketDecoder {
+
+    private static final int MAX_FIELD_LENGTH = 50;
+    private static final int MAX_SENDERS = 10_000;
+    private static final long MIN_EPOCH_SECOND = LocalDateTime.of(1, 1, 1, 0, 0).toEpochSecond(ZoneOffset.UTC);
+    private static final long MAX_EPOCH_SECOND = LocalDateTime.of(9999, 12, 31, 23, 59, 59)
+            .toEpochSecond(ZoneOffset.UTC);
+
+    private final Map<Long, Integer> sequences = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Long, Integer> eldest) {
+            return size() > MAX_SENDERS;
+        }
+    };
+
+    private long parseErrors;
+    private long lostPackets;
+
+    int decode(ByteBuffer packet, List<Hit> out, boolean trackSequence) {
+        if (packet.remaining() < HitPacket.HEADER_SIZE
+                || packet.get() != HitPacket.MAGIC
+                || packet.get() != HitPacket.VERSION) {
+            parseErrors++;
+            return 0;
+        }
+        long senderId = packet.getLong();
+        int sequence = packet.getInt();
+        int count = Short.toUnsignedInt(packet.getShort());
+        if (trackSequence) {
+            track(senderId, sequence);
+        }
+        int decoded = 0;
+        for (int i = 0; i < count; i++) {
+            if (packet.remaining() < Long.BYTES) {
+                parseErrors += count - i;
+                break;
+            }
+            long second = packet.getLong();
+            String app = readField(packet);
+            String uri = app == null ? null : readField(packet);
+            String ip = uri == null ? null : readField(packet);
+            if (ip == null) {
+                parseErrors += count - i;
+                break;
+            }
+            if (second < MIN_EPOCH_SECOND || second > MAX_EPOCH_SECOND
+                    || app.isBlank() || uri.isBlank() || ip.isBlank()
+                    || app.length() > MAX_FIELD_LENGTH || uri.length() > MAX_FIELD_LENGTH
+                    || ip.length() > MAX_FIELD_LENGTH) {
+                parseErrors++;
+                continue;
+            }
+            out.add(Hit.builder()
+                    .app(app)
+                    .uri(uri)
+                    .ip(IpAddressCodec.normalize(ip))
+                    .timestamp(LocalDateTime.ofEpochSecond(second, 0, ZoneOffset.UTC))
+                    .build());
+            decoded++;
+        }
+        return decoded;
+    }
+
+    long drainParseErrors() {
+        long errors = parseErrors;
+        parseErrors = 0;
+        return errors;
+    }
+
+    long drainLostPackets() {
+        long lost = lostPackets;
+        lostPackets = 0;
+        return lost;
+    }
+
+    private void track(long senderId, int sequence) {
+        Integer last = sequences.put(senderId, sequence);
+        if (last != null && sequence - last > 1) {
+            lostPackets += sequence - last - 1;
+        }
+    }
+
+    private static String readField(ByteBuffer packet) {
+        if (!packet.hasRemaining()) {
+            return null;
+        }
+        int length = Byte.toUnsignedInt(packet.get());
+        if (packet.remaining() < length) {
+            return null;
+        }
+        String value = new String(packet.array(), packet.arrayOffset() + packet.position(), length,
+                StandardCharsets.UTF_8);
+        packet.position(packet.position() + length);
+        return value;
+    }
+}
@@ -0,0 +1,50 @@
+package ru.practicum.ewm.stat.service.config;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.sql.init.SqlDataSourceScriptDatabaseInitializer;
+import org.springframework.boot.autoconfigure.sql.init.SqlInitializationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.boot.sql.init.DatabaseInitializationMode;
+import org.springframework.jdbc.core.JdbcTemplate;
+import ru.practicum.ewm.stat.service.repository.LegacyHitRepository;
+
+import javax.sql.DataSource;
+
+@Slf4j
+@Configuration
+public class SqlInitConfig {
+
+    @Bean
+    public SqlDataSourceScriptDatabaseInitializer dataSourceScriptDatabaseInitializer(
+            DataSource dataSource, SqlInitializationProperties properties) {
+        LegacyHitRepository legacyHitRepository = new LegacyHitRepository(new JdbcTemplate(dataSource));
+        return new SqlDataSourceScriptDatabaseInitializer(dataSource, properties) {
+            @Override
+            public boolean initializeDatabase() {
+                if (legacyHitRepository.needsSetAside()) {
+                    if (properties.getMode() != DatabaseInitializationMode.ALWAYS || legacyHitRepository.exists()) {
+                        throw new IllegalStateException("Таблица hits создана в старом формате. Переименуйте её в "
+                                + LegacyHitRepository.LEGACY_TABLE + " и запустите сервис со "
+                                + "spring.sql.init.mode=always, строки будут перенесены при старте");
+                    }
+                    log.warn("Таблица hits создана в старом формате, переименовываем её в {}",
+                            LegacyHitRepository.LEGACY_TABLE);
+                    legacyHitRepository.setAside();
+                }
+                boolean initialized = super.initializeDatabase();
+                if (legacyHitRepository.exists() && legacyHitRepository.isDictionaryEncoded()) {
+                    moveLegacyHits(legacyHitRepository);
+                }
+                return initialized;
+            }
+        };
+    }
+
+    private void moveLegacyHits(LegacyHitRepository legacyHitRepository) {
+        int moved = legacyHitRepository.moveAll();
+        legacyHitRepository.drop();
+        log.info("Перенесено {} хитов из {} в секционированную таблицу hits", moved,
+                LegacyHitRepository.LEGACY_TABLE);
+    }
+}
@@ -0,0 +1,80 @@
+package ru.practicum.ewm.stat.service.dictionary;
+
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+class Dictionary {
+
+    static final int UNKNOWN = -1;
+
+    private final String table;
+    private final DictionaryRepository repository;
+    private final TransactionTemplate transactionTemplate;
+    private final Map<String, Integer> ids = new ConcurrentHashMap<>();
+    private final Map<Integer, String> names = new ConcurrentHashMap<>();
+
+    Dictionary(String table, DictionaryRepository repository, TransactionTemplate transactionTemplate) {
+        this.table = table;
+        this.repository = repository;
+        this.transactionTemplate = transactionTemplate;
+    }
+
+    void load() {
+        repository.findAll(table).forEach(this::put);
+    }
+
+    int size() {
+        return ids.size();
+    }
+
+    int find(String name) {
+        return ids.getOrDefault(name, UNKNOWN);
+    }
+
+    int id(String name) {
+        Integer id = ids.get(name);
+        if (id == null) {
+            throw new IllegalStateException("Значение " + name + " не зарегистрировано в словаре " + table);
+        }
+        return id;
+    }
+
+    int register(String name) {
+        Integer id = ids.get(name);
+        if (id != null) {
+            return id;
+        }
+        synchronized (this) {
+            id = ids.get(name);
+            if (id == null) {
+                try {
+                    id = transactionTemplate.execute(status -> repository.findId(table, name)
+                            .orElseGet(() -> repository.insert(table, name)));
+                } catch (DuplicateKeyException e) {
+                    id = transactionTemplate.execute(status -> repository.findId(table, name).orElseThrow());
+                }
+                put(name, id);
+            }
+            return id;
+        }
+    }
+
+    String name(int id) {
+        String name = names.get(id);
+        if (name != null) {
+            return name;
+        }
+        name = repository.findName(table, id)
+                .orElseThrow(() -> new IllegalStateException("Значение " + id + " отсутствует в словаре " + table));
+        put(name, id);
+        return name;
+    }
+
+    private void put(String name, Integer id) {
+        ids.put(name, id);
+        names.put(id, name);
+    }
+}
@@ -0,0 +1,52 @@
+package ru.practicum.ewm.stat.service.dictionary;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.jdbc.support.KeyHolder;
+import org.springframework.stereotype.Repository;
+
+import java.sql.PreparedStatement;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+
+@Repository
+public class DictionaryRepository {
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public DictionaryRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    public Map<String, Integer> findAll(String table) {
+        Map<String, Integer> entries = new HashMap<>();
+        jdbcTemplate.query("SELECT id, name FROM " + table, rs -> {
+            entries.put(rs.getString("name"), rs.getInt("id"));
+        });
+        return entries;
+    }
+
+    public Optional<Integer> findId(String table, String name) {
+        List<Integer> ids = jdbcTemplate.queryForList("SELECT id FROM " + table + " WHERE name = ?", Integer.class, name);
+        return ids.stream().findFirst();
+    }
+
+    public Optional<String> findName(String table, int id) {
+        List<String> names = jdbcTemplate.queryForList("SELECT name FROM " + table + " WHERE id = ?", String.class, id);
+        return names.stream().findFirst();
+    }
+
+    public int insert(String table, String name) {
+        KeyHolder keyHolder = new GeneratedKeyHolder();
+        jdbcTemplate.update(connection -> {
+            PreparedStatement ps = connection.prepareStatement("INSERT INTO " + table + " (name) VALUES (?)",
+                    new String[]{"id"});
+            ps.setString(1, name);
+            return ps;
+        }, keyHolder);
+        return Objects.requireNonNull(keyHolder.getKey()).intValue();
+    }
+}
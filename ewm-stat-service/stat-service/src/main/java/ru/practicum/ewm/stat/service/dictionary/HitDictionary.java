@@ -0,0 +1,64 @@
+package ru.practicum.ewm.stat.service.dictionary;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.practicum.ewm.stat.service.model.Hit;
+
+import javax.annotation.PostConstruct;
+
+@Component
+public class HitDictionary {
+
+    private final Dictionary apps;
+    private final Dictionary uris;
+
+    public HitDictionary(DictionaryRepository repository,
+                         PlatformTransactionManager transactionManager,
+                         MeterRegistry meterRegistry) {
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.apps = new Dictionary("hit_apps", repository, transactionTemplate);
+        this.uris = new Dictionary("hit_uris", repository, transactionTemplate);
+        meterRegistry.gauge("stat.dictionary.size", Tags.of("name", "app"), apps, Dictionary::size);
+        meterRegistry.gauge("stat.dictionary.size", Tags.of("name", "uri"), uris, Dictionary::size);
+    }
+
+    @PostConstruct
+    public void load() {
+        apps.load();
+        uris.load();
+    }
+
+    public void register(Hit hit) {
+        apps.register(hit.getApp());
+        uris.register(hit.getUri());
+    }
+
+    public int appId(String name) {
+        return apps.id(name);
+    }
+
+    public int uriId(String name) {
+        return uris.id(name);
+    }
+
+    public int findAppId(String name) {
+        return apps.find(name);
+    }
+
+    public int findUriId(String name) {
+        return uris.find(name);
+    }
+
+    public String appName(int id) {
+        return apps.name(id);
+    }
+
+    public String uriName(int id) {
+        return uris.name(id);
+    }
+}
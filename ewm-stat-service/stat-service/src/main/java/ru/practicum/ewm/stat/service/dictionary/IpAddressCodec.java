@@ -0,0 +1,99 @@
+package ru.practicum.ewm.stat.service.dictionary;
+
+import lombok.experimental.UtilityClass;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+@UtilityClass
+public class IpAddressCodec {
+
+    private static final byte TEXT = 0;
+    private static final byte IPV4 = 4;
+    private static final byte IPV6 = 6;
+    private static final int IPV4_LENGTH = 4;
+    private static final int IPV6_LENGTH = 16;
+
+    public static byte[] encode(String ip) {
+        byte[] ipv4 = parseIpv4(ip);
+        if (ipv4 != null) {
+            return tagged(IPV4, ipv4);
+        }
+        byte[] ipv6 = parseIpv6(ip);
+        if (ipv6 != null) {
+            return tagged(IPV6, ipv6);
+        }
+        return tagged(TEXT, ip.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static String decode(byte[] bytes) {
+        byte[] value = Arrays.copyOfRange(bytes, 1, bytes.length);
+        switch (bytes[0]) {
+            case IPV4:
+            case IPV6:
+                try {
+                    return InetAddress.getByAddress(value).getHostAddress();
+                } catch (UnknownHostException e) {
+                    throw new IllegalArgumentException("Некорректный адрес в хранилище", e);
+                }
+            case TEXT:
+                return new String(value, StandardCharsets.UTF_8);
+            default:
+                throw new IllegalArgumentException("Неизвестный формат адреса: " + bytes[0]);
+        }
+    }
+
+    public static String normalize(String ip) {
+        return decode(encode(ip));
+    }
+
+    private static byte[] parseIpv4(String ip) {
+        String[] parts = ip.split("\\.", -1);
+        if (parts.length != IPV4_LENGTH) {
+            return null;
+        }
+        byte[] address = new byte[IPV4_LENGTH];
+        for (int i = 0; i < IPV4_LENGTH; i++) {
+            String part = parts[i];
+            if (part.isEmpty() || part.length() > 3 || (part.length() > 1 && part.charAt(0) == '0')
+                    || !part.chars().allMatch(IpAddressCodec::isAsciiDigit)) {
+                return null;
+            }
+            int value = Integer.parseInt(part);
+            if (value > 255) {
+                return null;
+            }
+            address[i] = (byte) value;
+        }
+        return address;
+    }
+
+    private static byte[] parseIpv6(String ip) {
+        if (ip.indexOf(':') < 0 || !ip.chars().allMatch(c -> isAsciiHexDigit(c) || c == ':')) {
+            return null;
+        }
+        try {
+            byte[] bytes = InetAddress.getByName(ip).getAddress();
+            return bytes.length == IPV6_LENGTH ? bytes : null;
+        } catch (UnknownHostException e) {
+            return null;
+        }
+    }
+
+    private static boolean isAsciiDigit(int c) {
+        return c >= '0' && c <= '9';
+    }
+
+    private static boolean isAsciiHexDigit(int c) {
+        return isAsciiDigit(c) || (c >= 'a' && c <= 'f') || (c >= 'A' && c <= 'F');
+    }
+
+    private static byte[] tagged(byte tag, byte[] value) {
+        byte[] bytes = new byte[value.length + 1];
+        bytes[0] = tag;
+        System.arraycopy(value, 0, bytes, 1, value.length);
+        return bytes;
+    }
+}
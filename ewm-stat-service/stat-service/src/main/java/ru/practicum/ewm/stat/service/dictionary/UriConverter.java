@@ -0,0 +1,26 @@
+package ru.practicum.ewm.stat.service.dictionary;
+
+import org.springframework.context.annotation.Lazy;
+
+import javax.persistence.AttributeConverter;
+import javax.persistence.Converter;
+
+@Converter
+public class UriConverter implements AttributeConverter<String, Integer> {
+
+    private final HitDictionary hitDictionary;
+
+    public UriConverter(@Lazy HitDictionary hitDictionary) {
+        this.hitDictionary = hitDictionary;
+    }
+
+    @Override
+    public Integer convertToDatabaseColumn(String name) {
+        return name == null ? null : hitDictionary.findUriId(name);
+    }
+
+    @Override
+    public String convertToEntityAttribute(Integer id) {
+        return id == null ? null : hitDictionary.uriName(id);
+    }
+}
@@ -0,0 +1,8 @@
+package ru.practicum.ewm.stat.service.exception;
+
+public class HitBufferOverflowException extends RuntimeException {
+
+    public HitBufferOverflowException(final String message) {
+        super(message);
+    }
+}
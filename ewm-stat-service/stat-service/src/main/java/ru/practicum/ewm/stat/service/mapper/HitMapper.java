@@ -1,6 +1,7 @@
 package ru.practicum.ewm.stat.service.mapper;
 
 import ru.practicum.ewm.stat.dto.HitDto;
+import ru.practicum.ewm.stat.service.dictionary.IpAddressCodec;
 import ru.practicum.ewm.stat.service.model.Hit;
 
 public class HitMapper {
@@ -19,7 +20,7 @@ public class HitMapper {
                 .id(hitDto.getId())
                 .app(hitDto.getApp())
                 .uri(hitDto.getUri())
-                .ip(hitDto.getIp())
+                .ip(IpAddressCodec.normalize(hitDto.getIp()))
                 .timestamp(hitDto.getTimestamp())
                 .build();
     }
@@ -4,6 +4,9 @@ import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import ru.practicum.ewm.stat.service.dictionary.AppConverter;
+import ru.practicum.ewm.stat.service.dictionary.IpAddressConverter;
+import ru.practicum.ewm.stat.service.dictionary.UriConverter;
 
 import javax.persistence.*;
 import java.time.LocalDateTime;
@@ -20,12 +23,15 @@ public class Hit {
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private long id;
 
-    @Column(nullable = false)
+    @Convert(converter = AppConverter.class)
+    @Column(name = "app_id", nullable = false)
     private String app;
 
-    @Column(nullable = false)
+    @Convert(converter = UriConverter.class)
+    @Column(name = "uri_id", nullable = false)
     private String uri;
 
+    @Convert(converter = IpAddressConverter.class)
     @Column(nullable = false)
     private String ip;
 
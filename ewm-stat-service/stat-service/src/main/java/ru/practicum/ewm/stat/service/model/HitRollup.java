@@ -0,0 +1,35 @@
+package ru.practicum.ewm.stat.service.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import javax.persistence.*;
+import java.time.LocalDateTime;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@Entity
+@Table(name = "hit_rollups")
+@IdClass(HitRollupId.class)
+public class HitRollup {
+
+    @Id
+    @Enumerated(EnumType.STRING)
+    private RollupGranularity granularity;
+
+    @Id
+    private LocalDateTime bucket;
+
+    @Id
+    private String app;
+
+    @Id
+    private String uri;
+
+    @Column(nullable = false)
+    private long hits;
+}
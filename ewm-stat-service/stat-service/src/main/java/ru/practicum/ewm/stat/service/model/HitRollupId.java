@@ -0,0 +1,22 @@
+package ru.practicum.ewm.stat.service.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+import java.time.LocalDateTime;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class HitRollupId implements Serializable {
+
+    private RollupGranularity granularity;
+
+    private LocalDateTime bucket;
+
+    private String app;
+
+    private String uri;
+}
@@ -0,0 +1,31 @@
+package ru.practicum.ewm.stat.service.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import javax.persistence.*;
+import java.time.LocalDateTime;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@Entity
+@Table(name = "hit_sketches")
+@IdClass(HitSketchId.class)
+public class HitSketch {
+
+    @Id
+    private String app;
+
+    @Id
+    private String uri;
+
+    @Id
+    private LocalDateTime bucket;
+
+    @Column(nullable = false)
+    private byte[] sketch;
+}
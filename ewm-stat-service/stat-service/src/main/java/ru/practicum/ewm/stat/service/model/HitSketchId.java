@@ -0,0 +1,20 @@
+package ru.practicum.ewm.stat.service.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+import java.time.LocalDateTime;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class HitSketchId implements Serializable {
+
+    private String app;
+
+    private String uri;
+
+    private LocalDateTime bucket;
+}
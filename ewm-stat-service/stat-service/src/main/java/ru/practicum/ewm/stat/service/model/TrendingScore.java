@@ -0,0 +1,31 @@
+package ru.practicum.ewm.stat.service.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import javax.persistence.*;
+import java.time.LocalDateTime;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@Entity
+@Table(name = "trending_scores")
+@IdClass(TrendingScoreId.class)
+public class TrendingScore {
+
+    @Id
+    private String app;
+
+    @Id
+    private String uri;
+
+    @Column(nullable = false)
+    private double score;
+
+    @Column(name = "decayed_at", nullable = false)
+    private LocalDateTime decayedAt;
+}
@@ -0,0 +1,34 @@
+package ru.practicum.ewm.stat.service.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import javax.persistence.*;
+import java.time.LocalDateTime;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@Entity
+@Table(name = "uri_visitors")
+@IdClass(UriVisitorsId.class)
+public class UriVisitors {
+
+    @Id
+    private String app;
+
+    @Id
+    private String uri;
+
+    @Column(nullable = false)
+    private long visitors;
+
+    @Column(name = "first_hit", nullable = false)
+    private LocalDateTime firstHit;
+
+    @Column(name = "last_hit", nullable = false)
+    private LocalDateTime lastHit;
+}
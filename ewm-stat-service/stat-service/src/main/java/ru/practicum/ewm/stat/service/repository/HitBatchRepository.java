@@ -0,0 +1,16 @@
+package ru.practicum.ewm.stat.service.repository;
+
+import ru.practicum.ewm.stat.service.model.Hit;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.function.Consumer;
+
+public interface HitBatchRepository {
+
+    void saveAllInBatch(List<Hit> hits);
+
+    void copyAll(List<Hit> hits);
+
+    void exportAll(LocalDateTime from, LocalDateTime until, Consumer<Hit> consumer);
+}
@@ -0,0 +1,138 @@
+package ru.practicum.ewm.stat.service.repository;
+
+import org.postgresql.PGConnection;
+import org.postgresql.copy.CopyManager;
+import org.postgresql.copy.CopyOut;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import ru.practicum.ewm.stat.service.dictionary.HitDictionary;
+import ru.practicum.ewm.stat.service.dictionary.IpAddressCodec;
+import ru.practicum.ewm.stat.service.model.Hit;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.function.Consumer;
+
+public class HitBatchRepositoryImpl implements HitBatchRepository {
+
+    private static final String INSERT_HIT = "INSERT INTO hits (app_id, uri_id, ip, created) VALUES (?, ?, ?, ?)";
+    private static final String COPY_IN = "COPY hits (app_id, uri_id, ip, created) FROM STDIN";
+    private static final String SELECT_HITS = "SELECT app_id, uri_id, ip, created FROM hits " +
+            "WHERE created >= ? AND created < ?";
+    private static final String COPY_OUT = "COPY (SELECT app_id, uri_id, ip, created FROM hits " +
+            "WHERE created >= '%s' AND created < '%s') TO STDOUT";
+    private static final String BYTEA_PREFIX = "\\\\x";
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+    private final JdbcTemplate jdbcTemplate;
+    private final HitDictionary hitDictionary;
+    private final int batchSize;
+    private final boolean copySupported;
+
+    public HitBatchRepositoryImpl(JdbcTemplate jdbcTemplate,
+                                  HitDictionary hitDictionary,
+                                  @Value("${stat.hits.jdbc-batch-size:500}") int batchSize) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.hitDictionary = hitDictionary;
+        this.batchSize = batchSize;
+        this.copySupported = SqlDialect.of(jdbcTemplate) == SqlDialect.POSTGRESQL;
+    }
+
+    @Override
+    public void saveAllInBatch(List<Hit> hits) {
+        jdbcTemplate.batchUpdate(INSERT_HIT, hits, batchSize, (ps, hit) -> {
+            ps.setInt(1, hitDictionary.appId(hit.getApp()));
+            ps.setInt(2, hitDictionary.uriId(hit.getUri()));
+            ps.setBytes(3, IpAddressCodec.encode(hit.getIp()));
+            ps.setTimestamp(4, Timestamp.valueOf(hit.getTimestamp()));
+        });
+    }
+
+    @Override
+    public void copyAll(List<Hit> hits) {
+        if (!copySupported) {
+            saveAllInBatch(hits);
+            return;
+        }
+        StringBuilder rows = new StringBuilder(hits.size() * 64);
+        for (Hit hit : hits) {
+            rows.append(hitDictionary.appId(hit.getApp())).append('\t')
+                    .append(hitDictionary.uriId(hit.getUri())).append('\t')
+                    .append(BYTEA_PREFIX);
+            for (byte b : IpAddressCodec.encode(hit.getIp())) {
+                rows.append(HEX[(b >> 4) & 0xF]).append(HEX[b & 0xF]);
+            }
+            rows.append('\t').append(Timestamp.valueOf(hit.getTimestamp())).append('\n');
+        }
+        jdbcTemplate.execute((ConnectionCallback<Long>) connection -> {
+            try {
+                return copyManager(connection).copyIn(COPY_IN, new StringReader(rows.toString()));
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+    }
+
+    @Override
+    public void exportAll(LocalDateTime from, LocalDateTime until, Consumer<Hit> consumer) {
+        if (!copySupported) {
+            jdbcTemplate.query(connection -> {
+                PreparedStatement ps = connection.prepareStatement(SELECT_HITS);
+                ps.setFetchSize(batchSize);
+                ps.setTimestamp(1, Timestamp.valueOf(from));
+                ps.setTimestamp(2, Timestamp.valueOf(until));
+                return ps;
+            }, (RowCallbackHandler) rs -> consumer.accept(toHit(rs.getInt("app_id"), rs.getInt("uri_id"),
+                    rs.getBytes("ip"), rs.getTimestamp("created"))));
+            return;
+        }
+        String sql = String.format(COPY_OUT, Timestamp.valueOf(from), Timestamp.valueOf(until));
+        jdbcTemplate.execute((ConnectionCallback<Void>) connection -> {
+            CopyOut copyOut = copyManager(connection).copyOut(sql);
+            try {
+                byte[] row;
+                while ((row = copyOut.readFromCopy()) != null) {
+                    consumer.accept(parseRow(new String(row, StandardCharsets.UTF_8)));
+                }
+            } finally {
+                if (copyOut.isActive()) {
+                    copyOut.cancelCopy();
+                }
+            }
+            return null;
+        });
+    }
+
+    private Hit parseRow(String row) {
+        String[] fields = row.substring(0, row.length() - 1).split("\t");
+        String hex = fields[2].substring(BYTEA_PREFIX.length());
+        byte[] ip = new byte[hex.length() / 2];
+        for (int i = 0; i < ip.length; i++) {
+            ip[i] = (byte) Integer.parseInt(hex.substring(i * 2, i * 2 + 2), 16);
+        }
+        return toHit(Integer.parseInt(fields[0]), Integer.parseInt(fields[1]), ip, Timestamp.valueOf(fields[3]));
+    }
+
+    private Hit toHit(int appId, int uriId, byte[] ip, Timestamp created) {
+        return Hit.builder()
+                .app(hitDictionary.appName(appId))
+                .uri(hitDictionary.uriName(uriId))
+                .ip(IpAddressCodec.decode(ip))
+                .timestamp(created.toLocalDateTime())
+                .build();
+    }
+
+    private static CopyManager copyManager(Connection connection) throws SQLException {
+        return connection.unwrap(PGConnection.class).getCopyAPI();
+    }
+}
@@ -0,0 +1,13 @@
+package ru.practicum.ewm.stat.service.repository;
+
+import lombok.Value;
+
+import java.time.LocalDateTime;
+
+@Value
+public class HitBucketCount {
+    LocalDateTime bucket;
+    String app;
+    String uri;
+    Long hits;
+}
@@ -0,0 +1,12 @@
+package ru.practicum.ewm.stat.service.repository;
+
+import ru.practicum.ewm.stat.service.model.RollupGranularity;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+public interface HitHistogramRepository {
+
+    List<HitBucketCount> countUniqueByBucket(RollupGranularity granularity, List<String> uris,
+                                             LocalDateTime start, LocalDateTime end);
+}
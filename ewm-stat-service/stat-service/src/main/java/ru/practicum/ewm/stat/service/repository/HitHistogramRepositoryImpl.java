@@ -0,0 +1,43 @@
+package ru.practicum.ewm.stat.service.repository;
+
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import ru.practicum.ewm.stat.service.model.RollupGranularity;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.List;
+
+public class HitHistogramRepositoryImpl implements HitHistogramRepository {
+
+    private static final String UNIQUE_BY_BUCKET_SQL = "SELECT DATE_TRUNC('%1$s', h.created) AS bucket, " +
+            "a.name AS app, u.name AS uri, COUNT(DISTINCT h.ip) AS hits " +
+            "FROM hits h " +
+            "JOIN hit_apps a ON a.id = h.app_id " +
+            "JOIN hit_uris u ON u.id = h.uri_id " +
+            "WHERE h.created BETWEEN :start AND :end %2$s" +
+            "GROUP BY DATE_TRUNC('%1$s', h.created), a.name, u.name";
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+
+    public HitHistogramRepositoryImpl(NamedParameterJdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @Override
+    public List<HitBucketCount> countUniqueByBucket(RollupGranularity granularity, List<String> uris,
+                                                    LocalDateTime start, LocalDateTime end) {
+        boolean withUris = uris != null && !uris.isEmpty();
+        String sql = String.format(UNIQUE_BY_BUCKET_SQL, granularity.name().toLowerCase(),
+                withUris ? "AND u.name IN (:uris) " : "");
+        MapSqlParameterSource parameters = new MapSqlParameterSource()
+                .addValue("start", Timestamp.valueOf(start))
+                .addValue("end", Timestamp.valueOf(end))
+                .addValue("uris", uris);
+        return jdbcTemplate.query(sql, parameters, (rs, rowNum) -> new HitBucketCount(
+                rs.getObject("bucket", LocalDateTime.class),
+                rs.getString("app"),
+                rs.getString("uri"),
+                rs.getLong("hits")));
+    }
+}
@@ -0,0 +1,95 @@
+package ru.practicum.ewm.stat.service.repository;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+import java.util.Objects;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+@Repository
+public class HitPartitionRepository {
+
+    private static final DateTimeFormatter PARTITION_SUFFIX = DateTimeFormatter.ofPattern("'y'yyyy'm'MM");
+    private static final Pattern PARTITION_NAME = Pattern.compile("hits_y(\\d{4})m(\\d{2})");
+
+    private static final String FIND_PARTITIONS = "SELECT c.relname FROM pg_inherits i " +
+            "JOIN pg_class c ON c.oid = i.inhrelid " +
+            "JOIN pg_class p ON p.oid = i.inhparent " +
+            "WHERE p.relname = 'hits'";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final boolean partitioned;
+
+    public HitPartitionRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.partitioned = SqlDialect.of(jdbcTemplate) == SqlDialect.POSTGRESQL;
+    }
+
+    public boolean isPartitioned() {
+        return partitioned;
+    }
+
+    public void createMonthPartition(YearMonth month) {
+        jdbcTemplate.execute("CREATE TABLE IF NOT EXISTS " + partitionName(month) + " PARTITION OF hits " +
+                "FOR VALUES FROM ('" + month.atDay(1) + "') TO ('" + month.plusMonths(1).atDay(1) + "')");
+    }
+
+    public boolean existsMonthPartition(YearMonth month) {
+        return Boolean.TRUE.equals(jdbcTemplate.queryForObject("SELECT to_regclass(?) IS NOT NULL", Boolean.class,
+                partitionName(month)));
+    }
+
+    public void lockDefault() {
+        jdbcTemplate.execute("LOCK TABLE hits_default IN SHARE ROW EXCLUSIVE MODE");
+    }
+
+    public boolean hasDefaultRows(YearMonth month) {
+        return Boolean.TRUE.equals(jdbcTemplate.queryForObject(
+                "SELECT EXISTS (SELECT 1 FROM hits_default WHERE created >= ? AND created < ?)", Boolean.class,
+                Timestamp.valueOf(month.atDay(1).atStartOfDay()),
+                Timestamp.valueOf(month.plusMonths(1).atDay(1).atStartOfDay())));
+    }
+
+    public int createMonthPartitionFromDefault(YearMonth month) {
+        String name = partitionName(month);
+        Timestamp from = Timestamp.valueOf(month.atDay(1).atStartOfDay());
+        Timestamp to = Timestamp.valueOf(month.plusMonths(1).atDay(1).atStartOfDay());
+        jdbcTemplate.execute("CREATE TABLE " + name + " (LIKE hits INCLUDING DEFAULTS INCLUDING CONSTRAINTS)");
+        int moved = jdbcTemplate.update("INSERT INTO " + name + " SELECT * FROM hits_default " +
+                "WHERE created >= ? AND created < ?", from, to);
+        jdbcTemplate.update("DELETE FROM hits_default WHERE created >= ? AND created < ?", from, to);
+        jdbcTemplate.execute("ALTER TABLE hits ATTACH PARTITION " + name + " " +
+                "FOR VALUES FROM ('" + month.atDay(1) + "') TO ('" + month.plusMonths(1).atDay(1) + "')");
+        return moved;
+    }
+
+    public List<YearMonth> findMonthPartitions() {
+        return jdbcTemplate.queryForList(FIND_PARTITIONS, String.class).stream()
+                .map(PARTITION_NAME::matcher)
+                .filter(Matcher::matches)
+                .map(m -> YearMonth.of(Integer.parseInt(m.group(1)), Integer.parseInt(m.group(2))))
+                .sorted()
+                .collect(Collectors.toList());
+    }
+
+    public void dropMonthPartition(YearMonth month) {
+        String name = partitionName(month);
+        jdbcTemplate.execute("ALTER TABLE hits DETACH PARTITION " + name);
+        jdbcTemplate.execute("DROP TABLE " + name);
+    }
+
+    public int deleteFromDefaultBefore(LocalDateTime before) {
+        return jdbcTemplate.update("DELETE FROM hits_default WHERE created < ?", Timestamp.valueOf(before));
+    }
+
+    private String partitionName(YearMonth month) {
+        return "hits_" + Objects.requireNonNull(month).format(PARTITION_SUFFIX);
+    }
+}
@@ -1,6 +1,7 @@
 package ru.practicum.ewm.stat.service.repository;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import ru.practicum.ewm.stat.dto.StatDto;
@@ -9,7 +10,7 @@ import ru.practicum.ewm.stat.service.model.Hit;
 import java.time.LocalDateTime;
 import java.util.List;
 
-public interface HitRepository extends JpaRepository<Hit, Long> {
+public interface HitRepository extends JpaRepository<Hit, Long>, HitBatchRepository, HitHistogramRepository {
 
     @Query(" SELECT new ru.practicum.ewm.stat.dto.StatDto(h.app, h.uri, COUNT(DISTINCT h.ip))  " +
             "FROM Hit h " +
@@ -45,4 +46,61 @@ public interface HitRepository extends JpaRepository<Hit, Long> {
     List<StatDto> findAllWithUris(@Param("uris") List<String> uris,
                                   @Param("start") LocalDateTime start,
                                   @Param("end") LocalDateTime end);
+
+    @Query(" SELECT new ru.practicum.ewm.stat.dto.StatDto(h.app, h.uri, COUNT(h.ip))  " +
+            "FROM Hit h " +
+            "WHERE h.timestamp >= :from AND h.timestamp < :until " +
+            "GROUP BY h.app, h.uri")
+    List<StatDto> findAllWithoutUrisFromUntil(@Param("from") LocalDateTime from,
+                                              @Param("until") LocalDateTime until);
+
+    @Query(" SELECT new ru.practicum.ewm.stat.dto.StatDto(h.app, h.uri, COUNT(h.ip))  " +
+            "FROM Hit h " +
+            "WHERE h.uri IN :uris AND h.timestamp >= :from AND h.timestamp < :until " +
+            "GROUP BY h.app, h.uri")
+    List<StatDto> findAllWithUrisFromUntil(@Param("uris") List<String> uris,
+                                           @Param("from") LocalDateTime from,
+                                           @Param("until") LocalDateTime until);
+
+    @Query("SELECT h FROM Hit h WHERE h.timestamp >= :from AND h.timestamp < :until")
+    List<Hit> findAllCreatedFromUntil(@Param("from") LocalDateTime from,
+                                      @Param("until") LocalDateTime until);
+
+    @Query("SELECT MIN(h.timestamp) FROM Hit h")
+    LocalDateTime findMinCreated();
+
+    @Modifying
+    @Query("DELETE FROM Hit h WHERE h.timestamp >= :from AND h.timestamp < :until")
+    int deleteAllCreatedFromUntil(@Param("from") LocalDateTime from,
+                                  @Param("until") LocalDateTime until);
+
+    @Modifying
+    @Query("DELETE FROM Hit h WHERE h.timestamp < :before")
+    int deleteAllCreatedBefore(@Param("before") LocalDateTime before);
+
+    @Query("SELECT DISTINCT h.app AS app, h.uri AS uri, h.ip AS ip " +
+            "FROM Hit h " +
+            "WHERE h.timestamp BETWEEN :start AND :end")
+    List<HitVisitor> findVisitorsWithoutUris(@Param("start") LocalDateTime start,
+                                             @Param("end") LocalDateTime end);
+
+    @Query("SELECT DISTINCT h.app AS app, h.uri AS uri, h.ip AS ip " +
+            "FROM Hit h " +
+            "WHERE h.uri IN :uris AND h.timestamp BETWEEN :start AND :end")
+    List<HitVisitor> findVisitorsWithUris(@Param("uris") List<String> uris,
+                                          @Param("start") LocalDateTime start,
+                                          @Param("end") LocalDateTime end);
+
+    @Query("SELECT DISTINCT h.app AS app, h.uri AS uri, h.ip AS ip " +
+            "FROM Hit h " +
+            "WHERE h.timestamp >= :from AND h.timestamp < :until")
+    List<HitVisitor> findVisitorsWithoutUrisFromUntil(@Param("from") LocalDateTime from,
+                                                      @Param("until") LocalDateTime until);
+
+    @Query("SELECT DISTINCT h.app AS app, h.uri AS uri, h.ip AS ip " +
+            "FROM Hit h " +
+            "WHERE h.uri IN :uris AND h.timestamp >= :from AND h.timestamp < :until")
+    List<HitVisitor> findVisitorsWithUrisFromUntil(@Param("uris") List<String> uris,
+                                                   @Param("from") LocalDateTime from,
+                                                   @Param("until") LocalDateTime until);
 }
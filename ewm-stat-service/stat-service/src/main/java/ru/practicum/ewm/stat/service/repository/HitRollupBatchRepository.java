@@ -0,0 +1,10 @@
+package ru.practicum.ewm.stat.service.repository;
+
+import ru.practicum.ewm.stat.service.model.Hit;
+
+import java.util.List;
+
+public interface HitRollupBatchRepository {
+
+    void addAll(List<Hit> hits);
+}
@@ -0,0 +1,85 @@
+package ru.practicum.ewm.stat.service.repository;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import ru.practicum.ewm.stat.service.model.Hit;
+import ru.practicum.ewm.stat.service.model.HitRollupId;
+import ru.practicum.ewm.stat.service.model.RollupGranularity;
+
+import java.sql.Connection;
+import java.sql.Timestamp;
+import java.util.*;
+
+public class HitRollupBatchRepositoryImpl implements HitRollupBatchRepository {
+
+    private static final String UPSERT_POSTGRES = "INSERT INTO hit_rollups (granularity, bucket, app, uri, hits) " +
+            "SELECT * FROM unnest(?, ?, ?, ?, ?) " +
+            "ON CONFLICT (granularity, uri, app, bucket) DO UPDATE SET hits = hit_rollups.hits + EXCLUDED.hits";
+
+    private static final String UPSERT_MERGE = "MERGE INTO hit_rollups r " +
+            "USING (VALUES (CAST(? AS VARCHAR(10)), CAST(? AS TIMESTAMP), CAST(? AS VARCHAR(50)), " +
+            "CAST(? AS VARCHAR(50)), CAST(? AS BIGINT))) AS s (granularity, bucket, app, uri, hits) " +
+            "ON r.granularity = s.granularity AND r.uri = s.uri AND r.app = s.app AND r.bucket = s.bucket " +
+            "WHEN MATCHED THEN UPDATE SET hits = r.hits + s.hits " +
+            "WHEN NOT MATCHED THEN INSERT (granularity, bucket, app, uri, hits) " +
+            "VALUES (s.granularity, s.bucket, s.app, s.uri, s.hits)";
+
+    private static final Comparator<HitRollupId> KEY_ORDER = Comparator
+            .comparing(HitRollupId::getGranularity)
+            .thenComparing(HitRollupId::getUri)
+            .thenComparing(HitRollupId::getApp)
+            .thenComparing(HitRollupId::getBucket);
+
+    private final JdbcTemplate jdbcTemplate;
+    private final int batchSize;
+    private final boolean postgres;
+
+    public HitRollupBatchRepositoryImpl(JdbcTemplate jdbcTemplate,
+                                        @Value("${stat.hits.jdbc-batch-size:500}") int batchSize) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.batchSize = batchSize;
+        this.postgres = SqlDialect.of(jdbcTemplate) == SqlDialect.POSTGRESQL;
+    }
+
+    @Override
+    public void addAll(List<Hit> hits) {
+        Map<HitRollupId, Long> deltas = new TreeMap<>(KEY_ORDER);
+        for (Hit hit : hits) {
+            for (RollupGranularity granularity : RollupGranularity.values()) {
+                HitRollupId key = new HitRollupId(granularity, granularity.floor(hit.getTimestamp()),
+                        hit.getApp(), hit.getUri());
+                deltas.merge(key, 1L, Long::sum);
+            }
+        }
+        if (deltas.isEmpty()) {
+            return;
+        }
+        if (postgres) {
+            jdbcTemplate.update(UPSERT_POSTGRES, ps -> {
+                Connection connection = ps.getConnection();
+                ps.setArray(1, connection.createArrayOf("varchar", deltas.keySet().stream()
+                        .map(key -> key.getGranularity().name())
+                        .toArray()));
+                ps.setArray(2, connection.createArrayOf("timestamp", deltas.keySet().stream()
+                        .map(key -> Timestamp.valueOf(key.getBucket()))
+                        .toArray()));
+                ps.setArray(3, connection.createArrayOf("varchar", deltas.keySet().stream()
+                        .map(HitRollupId::getApp)
+                        .toArray()));
+                ps.setArray(4, connection.createArrayOf("varchar", deltas.keySet().stream()
+                        .map(HitRollupId::getUri)
+                        .toArray()));
+                ps.setArray(5, connection.createArrayOf("bigint", deltas.values().toArray()));
+            });
+            return;
+        }
+        jdbcTemplate.batchUpdate(UPSERT_MERGE, deltas.entrySet(), batchSize, (ps, delta) -> {
+            HitRollupId key = delta.getKey();
+            ps.setString(1, key.getGranularity().name());
+            ps.setTimestamp(2, Timestamp.valueOf(key.getBucket()));
+            ps.setString(3, key.getApp());
+            ps.setString(4, key.getUri());
+            ps.setLong(5, delta.getValue());
+        });
+    }
+}
@@ -0,0 +1,49 @@
+package ru.practicum.ewm.stat.service.repository;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import ru.practicum.ewm.stat.dto.StatDto;
+import ru.practicum.ewm.stat.service.model.HitRollup;
+import ru.practicum.ewm.stat.service.model.HitRollupId;
+import ru.practicum.ewm.stat.service.model.RollupGranularity;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+public interface HitRollupRepository extends JpaRepository<HitRollup, HitRollupId>, HitRollupBatchRepository {
+
+    @Query(" SELECT new ru.practicum.ewm.stat.dto.StatDto(r.app, r.uri, SUM(r.hits))  " +
+            "FROM HitRollup r " +
+            "WHERE r.granularity = :granularity AND r.bucket >= :from AND r.bucket < :until " +
+            "GROUP BY r.app, r.uri")
+    List<StatDto> sumWithoutUris(@Param("granularity") RollupGranularity granularity,
+                                 @Param("from") LocalDateTime from,
+                                 @Param("until") LocalDateTime until);
+
+    @Query(" SELECT new ru.practicum.ewm.stat.dto.StatDto(r.app, r.uri, SUM(r.hits))  " +
+            "FROM HitRollup r " +
+            "WHERE r.granularity = :granularity AND r.uri IN :uris AND r.bucket >= :from AND r.bucket < :until " +
+            "GROUP BY r.app, r.uri")
+    List<StatDto> sumWithUris(@Param("granularity") RollupGranularity granularity,
+                              @Param("uris") List<String> uris,
+                              @Param("from") LocalDateTime from,
+                              @Param("until") LocalDateTime until);
+
+    @Query(" SELECT new ru.practicum.ewm.stat.service.repository.HitBucketCount(r.bucket, r.app, r.uri, SUM(r.hits))  " +
+            "FROM HitRollup r " +
+            "WHERE r.granularity = :granularity AND r.bucket >= :from AND r.bucket < :until " +
+            "GROUP BY r.bucket, r.app, r.uri")
+    List<HitBucketCount> findBucketsWithoutUris(@Param("granularity") RollupGranularity granularity,
+                                                @Param("from") LocalDateTime from,
+                                                @Param("until") LocalDateTime until);
+
+    @Query(" SELECT new ru.practicum.ewm.stat.service.repository.HitBucketCount(r.bucket, r.app, r.uri, SUM(r.hits))  " +
+            "FROM HitRollup r " +
+            "WHERE r.granularity = :granularity AND r.uri IN :uris AND r.bucket >= :from AND r.bucket < :until " +
+            "GROUP BY r.bucket, r.app, r.uri")
+    List<HitBucketCount> findBucketsWithUris(@Param("granularity") RollupGranularity granularity,
+                                             @Param("uris") List<String> uris,
+                                             @Param("from") LocalDateTime from,
+                                             @Param("until") LocalDateTime until);
+}
@@ -0,0 +1,14 @@
+package ru.practicum.ewm.stat.service.repository;
+
+import lombok.Value;
+
+import java.time.LocalDateTime;
+
+@Value
+public class HitSecondCount {
+    String app;
+    String uri;
+    String ip;
+    LocalDateTime second;
+    long hits;
+}
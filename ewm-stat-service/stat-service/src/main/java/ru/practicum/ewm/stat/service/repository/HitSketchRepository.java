@@ -0,0 +1,28 @@
+package ru.practicum.ewm.stat.service.repository;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import ru.practicum.ewm.stat.service.model.HitSketch;
+import ru.practicum.ewm.stat.service.model.HitSketchId;
+
+import javax.persistence.LockModeType;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+public interface HitSketchRepository extends JpaRepository<HitSketch, HitSketchId> {
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT s FROM HitSketch s WHERE s.app = :app AND s.uri = :uri AND s.bucket = :bucket")
+    Optional<HitSketch> findForUpdate(@Param("app") String app,
+                                      @Param("uri") String uri,
+                                      @Param("bucket") LocalDateTime bucket);
+
+    List<HitSketch> findAllByBucketGreaterThanEqualAndBucketLessThan(LocalDateTime from, LocalDateTime until);
+
+    List<HitSketch> findAllByUriInAndBucketGreaterThanEqualAndBucketLessThan(List<String> uris,
+                                                                             LocalDateTime from,
+                                                                             LocalDateTime until);
+}
@@ -0,0 +1,10 @@
+package ru.practicum.ewm.stat.service.repository;
+
+public interface HitVisitor {
+
+    String getApp();
+
+    String getUri();
+
+    String getIp();
+}
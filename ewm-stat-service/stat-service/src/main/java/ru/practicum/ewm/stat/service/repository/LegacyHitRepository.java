@@ -0,0 +1,97 @@
+package ru.practicum.ewm.stat.service.repository;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+import ru.practicum.ewm.stat.dto.HitDto;
+
+import java.util.List;
+
+@Repository
+public class LegacyHitRepository {
+
+    public static final String LEGACY_TABLE = "hits_legacy";
+
+    private static final String FIND_PARTITIONS = "SELECT c.relname FROM pg_inherits i " +
+            "JOIN pg_class c ON c.oid = i.inhrelid " +
+            "WHERE i.inhparent = to_regclass('hits_legacy')";
+
+    private static final String MOVE_HITS = "WITH moved AS (DELETE FROM hits_legacy RETURNING id, created, app_id, uri_id, ip) " +
+            "INSERT INTO hits (id, created, app_id, uri_id, ip) " +
+            "SELECT id, created, app_id, uri_id, ip FROM moved";
+
+    private static final String FIND_STRING_HITS = "SELECT id, app, uri, ip, created FROM hits_legacy " +
+            "WHERE id > ? ORDER BY id LIMIT ?";
+
+    private static final String RESET_IDENTITY = "SELECT setval(pg_get_serial_sequence('hits', 'id'), " +
+            "COALESCE((SELECT MAX(id) FROM hits), 0) + 1, false)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final boolean postgres;
+
+    public LegacyHitRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.postgres = SqlDialect.of(jdbcTemplate) == SqlDialect.POSTGRESQL;
+    }
+
+    public boolean needsSetAside() {
+        return isUnpartitioned() || hasColumn("hits", "app");
+    }
+
+    public boolean isUnpartitioned() {
+        if (!postgres) {
+            return false;
+        }
+        List<String> kinds = jdbcTemplate.queryForList(
+                "SELECT relkind::text FROM pg_class WHERE oid = to_regclass('hits')", String.class);
+        return kinds.contains("r");
+    }
+
+    public boolean exists() {
+        return postgres && Boolean.TRUE.equals(jdbcTemplate.queryForObject(
+                "SELECT to_regclass('hits_legacy') IS NOT NULL", Boolean.class));
+    }
+
+    public boolean isDictionaryEncoded() {
+        return hasColumn(LEGACY_TABLE, "app_id");
+    }
+
+    private boolean hasColumn(String table, String column) {
+        return postgres && Boolean.TRUE.equals(jdbcTemplate.queryForObject("SELECT EXISTS (SELECT 1 " +
+                "FROM information_schema.columns WHERE table_name = ? AND column_name = ?)", Boolean.class,
+                table, column));
+    }
+
+    public void setAside() {
+        jdbcTemplate.execute("ALTER TABLE hits RENAME TO hits_legacy");
+        jdbcTemplate.execute("ALTER TABLE hits_legacy RENAME CONSTRAINT pk_hits TO pk_hits_legacy");
+        jdbcTemplate.execute("ALTER INDEX IF EXISTS idx_hits_created RENAME TO idx_hits_legacy_created");
+        jdbcTemplate.execute("ALTER INDEX IF EXISTS idx_hits_uri_created RENAME TO idx_hits_legacy_uri_created");
+        for (String partition : jdbcTemplate.queryForList(FIND_PARTITIONS, String.class)) {
+            jdbcTemplate.execute("ALTER TABLE " + partition + " RENAME TO " + partition + "_legacy");
+        }
+    }
+
+    public int moveAll() {
+        int moved = jdbcTemplate.update(MOVE_HITS);
+        jdbcTemplate.queryForObject(RESET_IDENTITY, Long.class);
+        return moved;
+    }
+
+    public List<HitDto> findAllAfter(long id, int limit) {
+        return jdbcTemplate.query(FIND_STRING_HITS, (rs, rowNum) -> HitDto.builder()
+                .id(rs.getLong("id"))
+                .app(rs.getString("app"))
+                .uri(rs.getString("uri"))
+                .ip(rs.getString("ip"))
+                .timestamp(rs.getTimestamp("created").toLocalDateTime())
+                .build(), id, limit);
+    }
+
+    public int deleteUpTo(long id) {
+        return jdbcTemplate.update("DELETE FROM hits_legacy WHERE id <= ?", id);
+    }
+
+    public void drop() {
+        jdbcTemplate.execute("DROP TABLE hits_legacy CASCADE");
+    }
+}
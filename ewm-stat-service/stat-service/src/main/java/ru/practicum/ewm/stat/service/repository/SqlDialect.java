@@ -0,0 +1,15 @@
+package ru.practicum.ewm.stat.service.repository;
+
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+public enum SqlDialect {
+    POSTGRESQL,
+    STANDARD;
+
+    public static SqlDialect of(JdbcTemplate jdbcTemplate) {
+        String database = jdbcTemplate.execute((ConnectionCallback<String>) connection ->
+                connection.getMetaData().getDatabaseProductName());
+        return "PostgreSQL".equals(database) ? POSTGRESQL : STANDARD;
+    }
+}
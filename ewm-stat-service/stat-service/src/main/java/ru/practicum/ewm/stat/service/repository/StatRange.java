@@ -0,0 +1,30 @@
+package ru.practicum.ewm.stat.service.repository;
+
+import lombok.Value;
+import ru.practicum.ewm.stat.service.model.RollupGranularity;
+
+import java.time.LocalDateTime;
+
+@Value
+public class StatRange {
+    RollupGranularity granularity;
+    LocalDateTime from;
+    LocalDateTime until;
+    boolean untilInclusive;
+
+    public static StatRange rollup(RollupGranularity granularity, LocalDateTime from, LocalDateTime until) {
+        return new StatRange(granularity, from, until, false);
+    }
+
+    public static StatRange raw(LocalDateTime from, LocalDateTime until) {
+        return new StatRange(null, from, until, false);
+    }
+
+    public static StatRange rawClosed(LocalDateTime start, LocalDateTime end) {
+        return new StatRange(null, start, end, true);
+    }
+
+    public boolean isRaw() {
+        return granularity == null;
+    }
+}
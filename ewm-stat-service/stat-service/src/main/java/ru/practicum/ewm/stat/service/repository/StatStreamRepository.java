@@ -0,0 +1,169 @@
+package ru.practicum.ewm.stat.service.repository;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Repository;
+import ru.practicum.ewm.stat.dto.StatDto;
+import ru.practicum.ewm.stat.service.dictionary.IpAddressCodec;
+
+import java.sql.PreparedStatement;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Consumer;
+
+@Repository
+public class StatStreamRepository {
+
+    private static final String ROLLUP_HITS = "SELECT r.app AS app, r.uri AS uri, r.hits AS hits " +
+            "FROM hit_rollups r " +
+            "WHERE r.granularity = ? AND r.bucket >= ? AND r.bucket < ? %s";
+
+    private static final String RAW_HITS = "SELECT a.name AS app, u.name AS uri, COUNT(*) AS hits " +
+            "FROM hits h " +
+            "JOIN hit_apps a ON a.id = h.app_id " +
+            "JOIN hit_uris u ON u.id = h.uri_id " +
+            "WHERE h.created >= ? AND h.created %s ? %s" +
+            "GROUP BY a.name, u.name";
+
+    private static final String SUM_HITS = "SELECT s.app, s.uri, SUM(s.hits) AS total " +
+            "FROM (%s) s " +
+            "GROUP BY s.app, s.uri " +
+            "ORDER BY total DESC";
+
+    private static final String COVERED_VISITORS = "SELECT v.app AS app, v.uri AS uri, v.visitors AS hits " +
+            "FROM uri_visitors v " +
+            "WHERE v.first_hit >= ? AND v.last_hit <= ? %s";
+
+    private static final String UNCOVERED_VISITORS = "SELECT a.name AS app, u.name AS uri, COUNT(DISTINCT h.ip) AS hits " +
+            "FROM hits h " +
+            "JOIN hit_apps a ON a.id = h.app_id " +
+            "JOIN hit_uris u ON u.id = h.uri_id " +
+            "JOIN uri_visitors v ON v.app = a.name AND v.uri = u.name " +
+            "WHERE h.created BETWEEN ? AND ? AND (v.first_hit < ? OR v.last_hit > ?) %s" +
+            "GROUP BY a.name, u.name";
+
+    private static final String UNCOVERED_VISITOR_KEYS = "SELECT v.app, v.uri " +
+            "FROM uri_visitors v " +
+            "WHERE (v.first_hit < ? OR v.last_hit > ?) %s";
+
+    private static final String SECOND_COUNTS = "SELECT a.name AS app, u.name AS uri, " +
+            "DATE_TRUNC('second', h.created) AS created_second, COUNT(*) AS hits " +
+            "FROM hits h " +
+            "JOIN hit_apps a ON a.id = h.app_id " +
+            "JOIN hit_uris u ON u.id = h.uri_id " +
+            "WHERE h.created %s ? " +
+            "GROUP BY a.name, u.name, DATE_TRUNC('second', h.created)";
+
+    private static final String VISITOR_SECOND_COUNTS = "SELECT a.name AS app, u.name AS uri, h.ip AS ip, " +
+            "DATE_TRUNC('second', h.created) AS created_second, COUNT(*) AS hits " +
+            "FROM hits h " +
+            "JOIN hit_apps a ON a.id = h.app_id " +
+            "JOIN hit_uris u ON u.id = h.uri_id " +
+            "WHERE h.created >= ? " +
+            "GROUP BY a.name, u.name, h.ip, DATE_TRUNC('second', h.created)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final int fetchSize;
+
+    public StatStreamRepository(JdbcTemplate jdbcTemplate,
+                                @Value("${stat.stream.fetch-size:500}") int fetchSize) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.fetchSize = fetchSize;
+    }
+
+    public void streamHits(List<StatRange> ranges, List<String> uris, Consumer<StatDto> consumer) {
+        if (ranges.isEmpty()) {
+            return;
+        }
+        List<String> pieces = new ArrayList<>();
+        List<Object> args = new ArrayList<>();
+        for (StatRange range : ranges) {
+            if (range.isRaw()) {
+                pieces.add(String.format(RAW_HITS, range.isUntilInclusive() ? "<=" : "<", uriFilter("u.name", uris)));
+            } else {
+                pieces.add(String.format(ROLLUP_HITS, uriFilter("r.uri", uris)));
+                args.add(range.getGranularity().name());
+            }
+            args.add(Timestamp.valueOf(range.getFrom()));
+            args.add(Timestamp.valueOf(range.getUntil()));
+            addUris(args, uris);
+        }
+        String sql = String.format(SUM_HITS, String.join(" UNION ALL ", pieces));
+        stream(sql, args, rs -> consumer.accept(new StatDto(rs.getString("app"), rs.getString("uri"),
+                rs.getLong("total"))));
+    }
+
+    public void streamVisitors(LocalDateTime start, LocalDateTime end, List<String> uris, boolean withUncovered,
+                               Consumer<StatDto> consumer) {
+        List<Object> args = new ArrayList<>();
+        String sql = String.format(COVERED_VISITORS, uriFilter("v.uri", uris));
+        args.add(Timestamp.valueOf(start));
+        args.add(Timestamp.valueOf(end));
+        addUris(args, uris);
+        if (withUncovered) {
+            sql = sql + " UNION ALL " + String.format(UNCOVERED_VISITORS, uriFilter("u.name", uris));
+            args.add(Timestamp.valueOf(start));
+            args.add(Timestamp.valueOf(end));
+            args.add(Timestamp.valueOf(start));
+            args.add(Timestamp.valueOf(end));
+            addUris(args, uris);
+        }
+        stream(sql + " ORDER BY hits DESC", args, rs -> consumer.accept(new StatDto(rs.getString("app"),
+                rs.getString("uri"), rs.getLong("hits"))));
+    }
+
+    public Set<List<String>> findUncoveredVisitors(LocalDateTime start, LocalDateTime end, List<String> uris) {
+        List<Object> args = new ArrayList<>();
+        args.add(Timestamp.valueOf(start));
+        args.add(Timestamp.valueOf(end));
+        addUris(args, uris);
+        Set<List<String>> keys = new HashSet<>();
+        jdbcTemplate.query(String.format(UNCOVERED_VISITOR_KEYS, uriFilter("v.uri", uris)),
+                (RowCallbackHandler) rs -> keys.add(List.of(rs.getString("app"), rs.getString("uri"))),
+                args.toArray());
+        return keys;
+    }
+
+    public void streamSecondCounts(LocalDateTime from, boolean fromInclusive, Consumer<HitSecondCount> consumer) {
+        stream(String.format(SECOND_COUNTS, fromInclusive ? ">=" : ">"), List.of(Timestamp.valueOf(from)),
+                rs -> consumer.accept(new HitSecondCount(rs.getString("app"), rs.getString("uri"),
+                        null, rs.getTimestamp("created_second").toLocalDateTime(), rs.getLong("hits"))));
+    }
+
+    public void streamVisitorSecondCounts(LocalDateTime from, Consumer<HitSecondCount> consumer) {
+        stream(VISITOR_SECOND_COUNTS, List.of(Timestamp.valueOf(from)),
+                rs -> consumer.accept(new HitSecondCount(rs.getString("app"), rs.getString("uri"),
+                        IpAddressCodec.decode(rs.getBytes("ip")), rs.getTimestamp("created_second").toLocalDateTime(),
+                        rs.getLong("hits"))));
+    }
+
+    private void stream(String sql, List<Object> args, RowCallbackHandler handler) {
+        jdbcTemplate.query(connection -> {
+            PreparedStatement ps = connection.prepareStatement(sql);
+            ps.setFetchSize(fetchSize);
+            for (int i = 0; i < args.size(); i++) {
+                ps.setObject(i + 1, args.get(i));
+            }
+            return ps;
+        }, handler);
+    }
+
+    private static String uriFilter(String column, List<String> uris) {
+        if (uris == null || uris.isEmpty()) {
+            return "";
+        }
+        return "AND " + column + " IN (" + String.join(", ", Collections.nCopies(uris.size(), "?")) + ") ";
+    }
+
+    private static void addUris(List<Object> args, List<String> uris) {
+        if (uris != null) {
+            args.addAll(uris);
+        }
+    }
+}
@@ -0,0 +1,14 @@
+package ru.practicum.ewm.stat.service.repository;
+
+import ru.practicum.ewm.stat.service.model.TrendingScore;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.Optional;
+
+public interface TrendingScoreBatchRepository {
+
+    void replaceAll(Collection<TrendingScore> scores, LocalDateTime watermark);
+
+    Optional<LocalDateTime> findWatermark();
+}
@@ -0,0 +1,51 @@
+package ru.practicum.ewm.stat.service.repository;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import ru.practicum.ewm.stat.service.model.TrendingScore;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.Optional;
+
+public class TrendingScoreBatchRepositoryImpl implements TrendingScoreBatchRepository {
+
+    private static final String DELETE_SCORES = "DELETE FROM trending_scores";
+
+    private static final String INSERT_SCORE = "INSERT INTO trending_scores (app, uri, score, decayed_at) " +
+            "VALUES (?, ?, ?, ?)";
+
+    private static final String DELETE_WATERMARK = "DELETE FROM trending_watermark";
+
+    private static final String INSERT_WATERMARK = "INSERT INTO trending_watermark (id, watermark) VALUES (1, ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final int batchSize;
+
+    public TrendingScoreBatchRepositoryImpl(JdbcTemplate jdbcTemplate,
+                                            @Value("${stat.hits.jdbc-batch-size:500}") int batchSize) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.batchSize = batchSize;
+    }
+
+    @Override
+    public void replaceAll(Collection<TrendingScore> scores, LocalDateTime watermark) {
+        jdbcTemplate.update(DELETE_WATERMARK);
+        jdbcTemplate.update(INSERT_WATERMARK, Timestamp.valueOf(watermark));
+        jdbcTemplate.update(DELETE_SCORES);
+        jdbcTemplate.batchUpdate(INSERT_SCORE, scores, batchSize, (ps, score) -> {
+            ps.setString(1, score.getApp());
+            ps.setString(2, score.getUri());
+            ps.setDouble(3, score.getScore());
+            ps.setTimestamp(4, Timestamp.valueOf(score.getDecayedAt()));
+        });
+    }
+
+    @Override
+    public Optional<LocalDateTime> findWatermark() {
+        return jdbcTemplate.queryForList("SELECT watermark FROM trending_watermark", Timestamp.class).stream()
+                .findFirst()
+                .map(Timestamp::toLocalDateTime);
+    }
+}
@@ -0,0 +1,9 @@
+package ru.practicum.ewm.stat.service.repository;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import ru.practicum.ewm.stat.service.model.TrendingScore;
+import ru.practicum.ewm.stat.service.model.TrendingScoreId;
+
+public interface TrendingScoreRepository extends JpaRepository<TrendingScore, TrendingScoreId>,
+        TrendingScoreBatchRepository {
+}
@@ -0,0 +1,15 @@
+package ru.practicum.ewm.stat.service.repository;
+
+import ru.practicum.ewm.stat.service.model.Hit;
+import ru.practicum.ewm.stat.service.model.UriVisitors;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+public interface UriVisitorsBatchRepository {
+
+    Map<List<String>, Long> insertVisitors(List<Hit> firstVisits);
+
+    void addVisitors(Collection<UriVisitors> deltas);
+}
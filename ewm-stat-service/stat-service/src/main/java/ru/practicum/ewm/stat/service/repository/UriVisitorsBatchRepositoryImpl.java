@@ -0,0 +1,94 @@
+package ru.practicum.ewm.stat.service.repository;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import ru.practicum.ewm.stat.service.model.Hit;
+import ru.practicum.ewm.stat.service.model.UriVisitors;
+
+import java.sql.Connection;
+import java.sql.Timestamp;
+import java.util.*;
+import java.util.stream.Collectors;
+
+public class UriVisitorsBatchRepositoryImpl implements UriVisitorsBatchRepository {
+
+    private static final String INSERT_VISITORS_POSTGRES = "INSERT INTO hit_visitors (app, uri, ip, first_seen) " +
+            "SELECT * FROM unnest(?, ?, ?, ?) ON CONFLICT DO NOTHING RETURNING app, uri";
+
+    private static final String INSERT_VISITOR_MERGE = "MERGE INTO hit_visitors v " +
+            "USING (VALUES (CAST(? AS VARCHAR(50)), CAST(? AS VARCHAR(50)), CAST(? AS VARCHAR(50)), " +
+            "CAST(? AS TIMESTAMP))) AS s (app, uri, ip, first_seen) " +
+            "ON v.uri = s.uri AND v.app = s.app AND v.ip = s.ip " +
+            "WHEN NOT MATCHED THEN INSERT (app, uri, ip, first_seen) VALUES (s.app, s.uri, s.ip, s.first_seen)";
+
+    private static final String ADD_VISITORS_POSTGRES = "INSERT INTO uri_visitors (app, uri, visitors, first_hit, last_hit) " +
+            "VALUES (?, ?, ?, ?, ?) " +
+            "ON CONFLICT (uri, app) DO UPDATE SET visitors = uri_visitors.visitors + EXCLUDED.visitors, " +
+            "first_hit = LEAST(uri_visitors.first_hit, EXCLUDED.first_hit), " +
+            "last_hit = GREATEST(uri_visitors.last_hit, EXCLUDED.last_hit)";
+
+    private static final String ADD_VISITORS_MERGE = "MERGE INTO uri_visitors u " +
+            "USING (VALUES (CAST(? AS VARCHAR(50)), CAST(? AS VARCHAR(50)), CAST(? AS BIGINT), " +
+            "CAST(? AS TIMESTAMP), CAST(? AS TIMESTAMP))) AS s (app, uri, visitors, first_hit, last_hit) " +
+            "ON u.uri = s.uri AND u.app = s.app " +
+            "WHEN MATCHED THEN UPDATE SET visitors = u.visitors + s.visitors, " +
+            "first_hit = LEAST(u.first_hit, s.first_hit), last_hit = GREATEST(u.last_hit, s.last_hit) " +
+            "WHEN NOT MATCHED THEN INSERT (app, uri, visitors, first_hit, last_hit) " +
+            "VALUES (s.app, s.uri, s.visitors, s.first_hit, s.last_hit)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final int batchSize;
+    private final boolean postgres;
+    private final String addVisitorsSql;
+
+    public UriVisitorsBatchRepositoryImpl(JdbcTemplate jdbcTemplate,
+                                          @Value("${stat.hits.jdbc-batch-size:500}") int batchSize) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.batchSize = batchSize;
+        this.postgres = SqlDialect.of(jdbcTemplate) == SqlDialect.POSTGRESQL;
+        this.addVisitorsSql = postgres ? ADD_VISITORS_POSTGRES : ADD_VISITORS_MERGE;
+    }
+
+    @Override
+    public Map<List<String>, Long> insertVisitors(List<Hit> firstVisits) {
+        Map<List<String>, Long> inserted = new HashMap<>();
+        if (firstVisits.isEmpty()) {
+            return inserted;
+        }
+        if (!postgres) {
+            for (Hit hit : firstVisits) {
+                if (jdbcTemplate.update(INSERT_VISITOR_MERGE, hit.getApp(), hit.getUri(), hit.getIp(),
+                        Timestamp.valueOf(hit.getTimestamp())) > 0) {
+                    inserted.merge(List.of(hit.getApp(), hit.getUri()), 1L, Long::sum);
+                }
+            }
+            return inserted;
+        }
+        jdbcTemplate.query(INSERT_VISITORS_POSTGRES, ps -> {
+            Connection connection = ps.getConnection();
+            ps.setArray(1, connection.createArrayOf("varchar", firstVisits.stream().map(Hit::getApp).toArray()));
+            ps.setArray(2, connection.createArrayOf("varchar", firstVisits.stream().map(Hit::getUri).toArray()));
+            ps.setArray(3, connection.createArrayOf("varchar", firstVisits.stream().map(Hit::getIp).toArray()));
+            ps.setArray(4, connection.createArrayOf("timestamp", firstVisits.stream()
+                    .map(hit -> Timestamp.valueOf(hit.getTimestamp()))
+                    .toArray()));
+        }, (RowCallbackHandler) rs -> inserted.merge(List.of(rs.getString("app"), rs.getString("uri")), 1L,
+                Long::sum));
+        return inserted;
+    }
+
+    @Override
+    public void addVisitors(Collection<UriVisitors> deltas) {
+        List<UriVisitors> ordered = deltas.stream()
+                .sorted(Comparator.comparing(UriVisitors::getUri).thenComparing(UriVisitors::getApp))
+                .collect(Collectors.toList());
+        jdbcTemplate.batchUpdate(addVisitorsSql, ordered, batchSize, (ps, delta) -> {
+            ps.setString(1, delta.getApp());
+            ps.setString(2, delta.getUri());
+            ps.setLong(3, delta.getVisitors());
+            ps.setTimestamp(4, Timestamp.valueOf(delta.getFirstHit()));
+            ps.setTimestamp(5, Timestamp.valueOf(delta.getLastHit()));
+        });
+    }
+}
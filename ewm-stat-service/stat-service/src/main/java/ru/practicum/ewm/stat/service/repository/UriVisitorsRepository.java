@@ -0,0 +1,12 @@
+package ru.practicum.ewm.stat.service.repository;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import ru.practicum.ewm.stat.service.model.UriVisitors;
+import ru.practicum.ewm.stat.service.model.UriVisitorsId;
+
+import java.util.List;
+
+public interface UriVisitorsRepository extends JpaRepository<UriVisitors, UriVisitorsId>, UriVisitorsBatchRepository {
+
+    List<UriVisitors> findAllByUriIn(List<String> uris);
+}
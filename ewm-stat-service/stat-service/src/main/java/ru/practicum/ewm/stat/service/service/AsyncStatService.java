@@ -0,0 +1,106 @@
+package ru.practicum.ewm.stat.service.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+import ru.practicum.ewm.stat.dto.HitDto;
+import ru.practicum.ewm.stat.dto.StatDto;
+import ru.practicum.ewm.stat.service.exception.HitBufferOverflowException;
+import ru.practicum.ewm.stat.service.mapper.HitMapper;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+@Slf4j
+@Component
+public class AsyncStatService {
+
+    private final StatService statService;
+    private final HitWriteBehindBuffer hitBuffer;
+    private final StatMetrics statMetrics;
+    private final boolean enabled;
+    private final int queryThreads;
+    private final int writeThreads;
+    private final int writeQueueCapacity;
+
+    private ExecutorService queryExecutor;
+    private ExecutorService writeExecutor;
+
+    public AsyncStatService(StatService statService,
+                            HitWriteBehindBuffer hitBuffer,
+                            StatMetrics statMetrics,
+                            @Value("${stat.async.enabled:false}") boolean enabled,
+                            @Value("${stat.async.query-threads:10}") int queryThreads,
+                            @Value("${stat.async.write-threads:10}") int writeThreads,
+                            @Value("${stat.async.write-queue-capacity:1000}") int writeQueueCapacity) {
+        this.statService = statService;
+        this.hitBuffer = hitBuffer;
+        this.statMetrics = statMetrics;
+        this.enabled = enabled;
+        this.queryThreads = queryThreads;
+        this.writeThreads = writeThreads;
+        this.writeQueueCapacity = writeQueueCapacity;
+    }
+
+    @PostConstruct
+    public void start() {
+        if (!enabled) {
+            return;
+        }
+        queryExecutor = Executors.newFixedThreadPool(queryThreads, new CustomizableThreadFactory("stat-query-"));
+        if (!hitBuffer.isEnabled()) {
+            writeExecutor = new ThreadPoolExecutor(writeThreads, writeThreads, 0, TimeUnit.MILLISECONDS,
+                    new ArrayBlockingQueue<>(writeQueueCapacity), new CustomizableThreadFactory("stat-write-"));
+        }
+        log.info("Асинхронная обработка запросов включена, потоков чтения {}, групповая запись {}",
+                queryThreads, hitBuffer.isEnabled());
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        if (!enabled) {
+            return;
+        }
+        queryExecutor.shutdown();
+        if (writeExecutor != null) {
+            writeExecutor.shutdown();
+            writeExecutor.awaitTermination(1, TimeUnit.MINUTES);
+        }
+        queryExecutor.awaitTermination(1, TimeUnit.MINUTES);
+        log.info("Асинхронная обработка запросов остановлена");
+    }
+
+    public CompletableFuture<HitDto> createHit(HitDto hitDto) {
+        if (!enabled) {
+            return CompletableFuture.completedFuture(statService.createHit(hitDto));
+        }
+        if (!hitBuffer.isEnabled()) {
+            try {
+                return CompletableFuture.supplyAsync(() -> statService.createHit(hitDto), writeExecutor);
+            } catch (RejectedExecutionException e) {
+                throw new HitBufferOverflowException("Очередь записи запросов переполнена");
+            }
+        }
+        statMetrics.hitReceived();
+        return hitBuffer.submit(HitMapper.toHit(hitDto)).thenApply(HitMapper::toHitDto);
+    }
+
+    public CompletableFuture<List<StatDto>> getStat(LocalDateTime start, LocalDateTime end, List<String> uris,
+                                                    Boolean unique, Boolean approx) {
+        if (!enabled) {
+            return CompletableFuture.completedFuture(statService.getStat(start, end, uris, unique, approx));
+        }
+        return CompletableFuture.supplyAsync(() -> statService.getStat(start, end, uris, unique, approx),
+                queryExecutor);
+    }
+}
@@ -0,0 +1,73 @@
+package ru.practicum.ewm.stat.service.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.practicum.ewm.stat.service.archive.HitArchive;
+import ru.practicum.ewm.stat.service.model.RollupGranularity;
+import ru.practicum.ewm.stat.service.repository.HitRepository;
+
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.concurrent.atomic.AtomicReference;
+
+@Slf4j
+@Component
+public class HitArchiveJob {
+
+    private final HitRepository hitRepository;
+    private final HitArchive hitArchive;
+    private final TransactionTemplate transactionTemplate;
+    private final int afterDays;
+
+    public HitArchiveJob(HitRepository hitRepository,
+                         HitArchive hitArchive,
+                         PlatformTransactionManager transactionManager,
+                         @Value("${stat.archive.after-days:90}") int afterDays) {
+        this.hitRepository = hitRepository;
+        this.hitArchive = hitArchive;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setIsolationLevel(TransactionDefinition.ISOLATION_REPEATABLE_READ);
+        this.afterDays = afterDays;
+    }
+
+    @Scheduled(cron = "${stat.archive.cron:0 30 3 * * *}")
+    public void archive() {
+        if (!hitArchive.isEnabled()) {
+            return;
+        }
+        LocalDateTime cutoff = RollupGranularity.DAY.floor(LocalDateTime.now().minusDays(afterDays));
+        LocalDateTime oldest = hitRepository.findMinCreated();
+        while (oldest != null && oldest.isBefore(cutoff)) {
+            archiveDay(RollupGranularity.DAY.floor(oldest));
+            oldest = hitRepository.findMinCreated();
+        }
+        hitArchive.advance(cutoff);
+    }
+
+    private void archiveDay(LocalDateTime day) {
+        LocalDateTime next = day.plusDays(1);
+        AtomicReference<Path> pending = new AtomicReference<>();
+        Integer archived;
+        try {
+            archived = transactionTemplate.execute(status -> {
+                pending.set(hitArchive.writePending(day.toLocalDate(),
+                        consumer -> hitRepository.exportAll(day, next, consumer)));
+                int deleted = hitRepository.deleteAllCreatedFromUntil(day, next);
+                hitArchive.commit(pending.get(), next);
+                return deleted;
+            });
+        } catch (RuntimeException e) {
+            if (pending.get() != null) {
+                hitArchive.discard(pending.get());
+            }
+            throw e;
+        }
+        Path segment = hitArchive.publish(pending.get(), next);
+        log.info("В архив {} перенесено {} запросов за {}", segment.getFileName(), archived, day.toLocalDate());
+    }
+}
@@ -0,0 +1,56 @@
+package ru.practicum.ewm.stat.service.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+import ru.practicum.ewm.stat.service.model.RollupGranularity;
+import ru.practicum.ewm.stat.service.repository.HitPartitionRepository;
+import ru.practicum.ewm.stat.service.repository.HitRepository;
+
+import java.time.LocalDateTime;
+
+@Slf4j
+@Component
+public class HitCompactionJob {
+
+    private final HitRepository hitRepository;
+    private final HitPartitionRepository hitPartitionRepository;
+    private final HitPartitionManager hitPartitionManager;
+    private final int rawRetentionDays;
+
+    public HitCompactionJob(HitRepository hitRepository,
+                            HitPartitionRepository hitPartitionRepository,
+                            HitPartitionManager hitPartitionManager,
+                            @Value("${stat.rollup.raw-retention-days:0}") int rawRetentionDays) {
+        this.hitRepository = hitRepository;
+        this.hitPartitionRepository = hitPartitionRepository;
+        this.hitPartitionManager = hitPartitionManager;
+        this.rawRetentionDays = rawRetentionDays;
+    }
+
+    @Transactional
+    @Scheduled(fixedDelayString = "${stat.rollup.compaction-interval-ms:3600000}")
+    public void compact() {
+        LocalDateTime before = getCompactedBefore();
+        if (before == null) {
+            return;
+        }
+        if (hitPartitionManager.isPartitioned()) {
+            int dropped = hitPartitionManager.dropPartitionsBefore(before);
+            int deleted = hitPartitionRepository.deleteFromDefaultBefore(before);
+            log.info("Удалено {} партиций и {} запросов старше {}, они учтены в агрегатах", dropped, deleted, before);
+            return;
+        }
+        int deleted = hitRepository.deleteAllCreatedBefore(before);
+        log.info("Удалено {} запросов старше {}, они учтены в агрегатах", deleted, before);
+    }
+
+    public LocalDateTime getCompactedBefore() {
+        if (rawRetentionDays <= 0) {
+            return null;
+        }
+        return RollupGranularity.DAY.floor(LocalDateTime.now().minusDays(rawRetentionDays));
+    }
+}
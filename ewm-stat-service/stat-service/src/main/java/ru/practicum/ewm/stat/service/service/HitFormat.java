@@ -0,0 +1,6 @@
+package ru.practicum.ewm.stat.service.service;
+
+public enum HitFormat {
+    CSV,
+    NDJSON
+}
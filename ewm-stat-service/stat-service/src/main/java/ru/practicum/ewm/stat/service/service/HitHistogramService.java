@@ -0,0 +1,109 @@
+package ru.practicum.ewm.stat.service.service;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+import ru.practicum.ewm.stat.dto.HistogramDto;
+import ru.practicum.ewm.stat.dto.HistogramSeriesDto;
+import ru.practicum.ewm.stat.dto.StatDto;
+import ru.practicum.ewm.stat.service.archive.HitArchive;
+import ru.practicum.ewm.stat.service.exception.StartEndRangeException;
+import ru.practicum.ewm.stat.service.model.RollupGranularity;
+import ru.practicum.ewm.stat.service.repository.HitBucketCount;
+import ru.practicum.ewm.stat.service.repository.HitRepository;
+import ru.practicum.ewm.stat.service.repository.HitRollupRepository;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.*;
+import java.util.stream.Collectors;
+
+@Component
+@RequiredArgsConstructor
+public class HitHistogramService {
+
+    private static final int MAX_BUCKETS = 10_000;
+
+    private final HitRepository hitRepository;
+    private final HitRollupRepository hitRollupRepository;
+    private final HitRollupService hitRollupService;
+    private final HitArchive hitArchive;
+    private final HitCompactionJob hitCompactionJob;
+
+    public HistogramDto getHistogram(LocalDateTime start, LocalDateTime end, List<String> uris,
+                                     RollupGranularity interval, boolean unique) {
+        return buildHistogram(start.truncatedTo(ChronoUnit.SECONDS), end.truncatedTo(ChronoUnit.SECONDS), uris,
+                interval, unique);
+    }
+
+    private HistogramDto buildHistogram(LocalDateTime start, LocalDateTime end, List<String> uris,
+                                        RollupGranularity interval, boolean unique) {
+        LocalDateTime first = interval.floor(start);
+        LocalDateTime last = interval.floor(end);
+        long size = interval.between(first, last) + 1;
+        if (size > MAX_BUCKETS) {
+            throw new StartEndRangeException("Слишком много интервалов гистограммы: " + size);
+        }
+        Map<List<String>, long[]> series = new HashMap<>();
+        if (unique) {
+            addUnique(series, (int) size, first, start, end, uris, interval);
+        } else if (first.equals(last)) {
+            addAll(series, (int) size, 0, hitRollupService.getStat(start, end, uris));
+        } else {
+            LocalDateTime from = interval.ceil(start);
+            if (start.isBefore(from)) {
+                addAll(series, (int) size, 0, hitRollupService.getStat(start, from.minusSeconds(1), uris));
+            }
+            List<HitBucketCount> counts = uris != null && !uris.isEmpty()
+                    ? hitRollupRepository.findBucketsWithUris(interval, uris, from, last)
+                    : hitRollupRepository.findBucketsWithoutUris(interval, from, last);
+            for (HitBucketCount count : counts) {
+                add(series, (int) size, (int) interval.between(first, count.getBucket()),
+                        count.getApp(), count.getUri(), count.getHits());
+            }
+            addAll(series, (int) size, (int) size - 1, hitRollupService.getStat(last, end, uris));
+        }
+        List<LocalDateTime> buckets = new ArrayList<>((int) size);
+        for (LocalDateTime bucket = first; !bucket.isAfter(last); bucket = interval.next(bucket)) {
+            buckets.add(bucket);
+        }
+        List<HistogramSeriesDto> result = series.entrySet().stream()
+                .map(e -> new HistogramSeriesDto(e.getKey().get(0), e.getKey().get(1), e.getValue()))
+                .sorted(Comparator.comparingLong((HistogramSeriesDto s) -> Arrays.stream(s.getHits()).sum())
+                        .reversed())
+                .collect(Collectors.toList());
+        return new HistogramDto(interval.name(), buckets, result);
+    }
+
+    private void addUnique(Map<List<String>, long[]> series, int size, LocalDateTime first, LocalDateTime start,
+                           LocalDateTime end, List<String> uris, RollupGranularity interval) {
+        LocalDateTime rawFrom = start;
+        if (hitArchive.reaches(start)) {
+            hitArchive.collectVisitors(interval, start, end, uris).forEach((bucket, visitors) ->
+                    visitors.forEach((key, ips) -> add(series, size, (int) interval.between(first, bucket),
+                            key.get(0), key.get(1), ips.size())));
+            rawFrom = hitArchive.getArchivedUntil();
+        }
+        LocalDateTime compactedBefore = hitCompactionJob.getCompactedBefore();
+        if (compactedBefore != null && rawFrom.isBefore(compactedBefore)) {
+            throw new StartEndRangeException("Уникальные посетители по интервалам доступны только с "
+                    + compactedBefore + ", более ранние запросы учтены только в агрегатах");
+        }
+        if (rawFrom.isAfter(end)) {
+            return;
+        }
+        for (HitBucketCount count : hitRepository.countUniqueByBucket(interval, uris, rawFrom, end)) {
+            add(series, size, (int) interval.between(first, count.getBucket()),
+                    count.getApp(), count.getUri(), count.getHits());
+        }
+    }
+
+    private void addAll(Map<List<String>, long[]> series, int size, int index, List<StatDto> stats) {
+        for (StatDto stat : stats) {
+            add(series, size, index, stat.getApp(), stat.getUri(), stat.getHits());
+        }
+    }
+
+    private void add(Map<List<String>, long[]> series, int size, int index, String app, String uri, long hits) {
+        series.computeIfAbsent(List.of(app, uri), key -> new long[size])[index] += hits;
+    }
+}
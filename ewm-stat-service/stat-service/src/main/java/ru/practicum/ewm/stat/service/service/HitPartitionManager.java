@@ -0,0 +1,82 @@
+package ru.practicum.ewm.stat.service.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.practicum.ewm.stat.service.repository.HitPartitionRepository;
+
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+
+@Slf4j
+@Component
+public class HitPartitionManager {
+
+    private final HitPartitionRepository hitPartitionRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final int monthsAhead;
+
+    public HitPartitionManager(HitPartitionRepository hitPartitionRepository,
+                               PlatformTransactionManager transactionManager,
+                               @Value("${stat.partitions.months-ahead:2}") int monthsAhead) {
+        this.hitPartitionRepository = hitPartitionRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.monthsAhead = monthsAhead;
+    }
+
+    public boolean isPartitioned() {
+        return hitPartitionRepository.isPartitioned();
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(cron = "${stat.partitions.cron:0 0 3 * * *}")
+    public void createPartitionsAhead() {
+        if (!isPartitioned()) {
+            return;
+        }
+        YearMonth current = YearMonth.now();
+        for (int i = 0; i <= monthsAhead; i++) {
+            YearMonth month = current.plusMonths(i);
+            try {
+                if (!hitPartitionRepository.existsMonthPartition(month)) {
+                    createMonthPartition(month);
+                }
+            } catch (DataAccessException e) {
+                log.warn("Не удалось создать партицию запросов за {}: {}", month, e.getMessage());
+            }
+        }
+    }
+
+    private void createMonthPartition(YearMonth month) {
+        Integer moved = transactionTemplate.execute(status -> {
+            hitPartitionRepository.lockDefault();
+            if (!hitPartitionRepository.hasDefaultRows(month)) {
+                hitPartitionRepository.createMonthPartition(month);
+                return 0;
+            }
+            return hitPartitionRepository.createMonthPartitionFromDefault(month);
+        });
+        if (moved != null && moved > 0) {
+            log.info("Создана партиция запросов за {}, из партиции по умолчанию перенесено {} запросов", month, moved);
+        }
+    }
+
+    public int dropPartitionsBefore(LocalDateTime before) {
+        int dropped = 0;
+        for (YearMonth month : hitPartitionRepository.findMonthPartitions()) {
+            if (month.plusMonths(1).atDay(1).atStartOfDay().isAfter(before)) {
+                break;
+            }
+            hitPartitionRepository.dropMonthPartition(month);
+            log.info("Удалена партиция запросов за {}", month);
+            dropped++;
+        }
+        return dropped;
+    }
+}
@@ -0,0 +1,126 @@
+package ru.practicum.ewm.stat.service.service;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+import ru.practicum.ewm.stat.dto.StatDto;
+import ru.practicum.ewm.stat.service.model.RollupGranularity;
+import ru.practicum.ewm.stat.service.repository.HitRepository;
+import ru.practicum.ewm.stat.service.repository.HitRollupRepository;
+import ru.practicum.ewm.stat.service.repository.StatRange;
+
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.stream.Collectors;
+
+@Component
+@RequiredArgsConstructor
+public class HitRollupService {
+
+    private static final RollupGranularity[] COARSE_TO_FINE = {
+            RollupGranularity.DAY, RollupGranularity.HOUR, RollupGranularity.MINUTE
+    };
+
+    private final HitRepository hitRepository;
+    private final HitRollupRepository hitRollupRepository;
+    private final LiveHitCounters liveHitCounters;
+
+    public List<StatDto> getStat(LocalDateTime start, LocalDateTime end, List<String> uris) {
+        boolean withUris = uris != null && !uris.isEmpty();
+        LocalDateTime from = RollupGranularity.MINUTE.ceil(start);
+        LocalDateTime until = RollupGranularity.MINUTE.floor(end);
+        if (!from.isBefore(until)) {
+            return rawHits(uris, start, end);
+        }
+        Map<Map.Entry<String, String>, Long> hits = new HashMap<>();
+        if (start.isBefore(from)) {
+            if (liveHitCounters.covers(start)) {
+                merge(hits, liveHitCounters.getStat(start, from.minusSeconds(1), uris, false));
+            } else {
+                merge(hits, withUris ? hitRepository.findAllWithUrisFromUntil(uris, start, from)
+                        : hitRepository.findAllWithoutUrisFromUntil(start, from));
+            }
+        }
+        cover(hits, uris, from, until);
+        merge(hits, rawHits(uris, until, end));
+        return toStats(hits);
+    }
+
+    public List<StatDto> getAlignedStat(LocalDateTime from, LocalDateTime until, List<String> uris) {
+        Map<Map.Entry<String, String>, Long> hits = new HashMap<>();
+        cover(hits, uris, from, until);
+        return toStats(hits);
+    }
+
+    private List<StatDto> rawHits(List<String> uris, LocalDateTime start, LocalDateTime end) {
+        if (liveHitCounters.covers(start)) {
+            return liveHitCounters.getStat(start, end, uris, false);
+        }
+        return uris != null && !uris.isEmpty() ? hitRepository.findAllWithUris(uris, start, end)
+                : hitRepository.findAllWithoutUris(start, end);
+    }
+
+    public List<StatRange> ranges(LocalDateTime start, LocalDateTime end) {
+        LocalDateTime from = RollupGranularity.MINUTE.ceil(start);
+        LocalDateTime until = RollupGranularity.MINUTE.floor(end);
+        List<StatRange> ranges = new ArrayList<>();
+        if (!from.isBefore(until)) {
+            ranges.add(StatRange.rawClosed(start, end));
+            return ranges;
+        }
+        if (start.isBefore(from)) {
+            ranges.add(StatRange.raw(start, from));
+        }
+        ranges.addAll(alignedRanges(from, until));
+        ranges.add(StatRange.rawClosed(until, end));
+        return ranges;
+    }
+
+    public List<StatRange> alignedRanges(LocalDateTime from, LocalDateTime until) {
+        List<StatRange> ranges = new ArrayList<>();
+        cover(ranges, from, until, 0);
+        return ranges;
+    }
+
+    private void cover(Map<Map.Entry<String, String>, Long> hits, List<String> uris,
+                       LocalDateTime from, LocalDateTime until) {
+        for (StatRange range : alignedRanges(from, until)) {
+            if (uris != null && !uris.isEmpty()) {
+                merge(hits, hitRollupRepository.sumWithUris(range.getGranularity(), uris, range.getFrom(),
+                        range.getUntil()));
+            } else {
+                merge(hits, hitRollupRepository.sumWithoutUris(range.getGranularity(), range.getFrom(),
+                        range.getUntil()));
+            }
+        }
+    }
+
+    private void cover(List<StatRange> ranges, LocalDateTime from, LocalDateTime until, int level) {
+        RollupGranularity granularity = COARSE_TO_FINE[level];
+        LocalDateTime alignedFrom = granularity.ceil(from);
+        LocalDateTime alignedUntil = granularity.floor(until);
+        if (!alignedFrom.isBefore(alignedUntil)) {
+            cover(ranges, from, until, level + 1);
+            return;
+        }
+        ranges.add(StatRange.rollup(granularity, alignedFrom, alignedUntil));
+        if (from.isBefore(alignedFrom)) {
+            cover(ranges, from, alignedFrom, level + 1);
+        }
+        if (alignedUntil.isBefore(until)) {
+            cover(ranges, alignedUntil, until, level + 1);
+        }
+    }
+
+    private List<StatDto> toStats(Map<Map.Entry<String, String>, Long> hits) {
+        return hits.entrySet().stream()
+                .map(e -> new StatDto(e.getKey().getKey(), e.getKey().getValue(), e.getValue()))
+                .sorted(Comparator.comparing(StatDto::getHits).reversed())
+                .collect(Collectors.toList());
+    }
+
+    private void merge(Map<Map.Entry<String, String>, Long> hits, List<StatDto> stats) {
+        for (StatDto stat : stats) {
+            hits.merge(Map.entry(stat.getApp(), stat.getUri()), stat.getHits(), Long::sum);
+        }
+    }
+}
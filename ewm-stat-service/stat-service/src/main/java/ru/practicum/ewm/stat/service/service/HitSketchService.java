@@ -0,0 +1,217 @@
+package ru.practicum.ewm.stat.service.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.practicum.ewm.stat.dto.StatDto;
+import ru.practicum.ewm.stat.service.model.Hit;
+import ru.practicum.ewm.stat.service.model.HitSketch;
+import ru.practicum.ewm.stat.service.model.HitSketchId;
+import ru.practicum.ewm.stat.service.model.RollupGranularity;
+import ru.practicum.ewm.stat.service.repository.HitRepository;
+import ru.practicum.ewm.stat.service.repository.HitSketchRepository;
+import ru.practicum.ewm.stat.service.repository.HitVisitor;
+import ru.practicum.ewm.stat.service.sketch.HyperLogLog;
+
+import javax.annotation.PreDestroy;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Collectors;
+
+@Slf4j
+@Component
+public class HitSketchService {
+
+    private static final RollupGranularity BUCKET = RollupGranularity.DAY;
+    private static final int FLUSH_BATCH_SIZE = 200;
+
+    private final HitRepository hitRepository;
+    private final HitSketchRepository hitSketchRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final int maxPending;
+    private final Map<HitSketchId, HyperLogLog> pending = new ConcurrentHashMap<>();
+    private final Map<HitSketchId, HyperLogLog> flushing = new ConcurrentHashMap<>();
+    private final Lock flushLock = new ReentrantLock();
+
+    public HitSketchService(HitRepository hitRepository,
+                            HitSketchRepository hitSketchRepository,
+                            PlatformTransactionManager transactionManager,
+                            @Value("${stat.sketch.max-pending:10000}") int maxPending) {
+        this.hitRepository = hitRepository;
+        this.hitSketchRepository = hitSketchRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.maxPending = maxPending;
+    }
+
+    public void addAll(List<Hit> hits) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            add(hits);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                add(hits);
+            }
+        });
+    }
+
+    private void add(List<Hit> hits) {
+        for (Hit hit : hits) {
+            HitSketchId key = new HitSketchId(hit.getApp(), hit.getUri(), BUCKET.floor(hit.getTimestamp()));
+            pending.compute(key, (k, sketch) -> {
+                HyperLogLog updated = sketch == null ? new HyperLogLog() : sketch;
+                updated.offer(hit.getIp());
+                return updated;
+            });
+        }
+        if (pending.size() >= maxPending) {
+            flushLock.lock();
+            try {
+                if (pending.size() >= maxPending) {
+                    log.debug("В памяти накопилось {} HyperLogLog-скетчей, сохраняем досрочно", pending.size());
+                    flushPending();
+                }
+            } catch (RuntimeException e) {
+                log.warn("Досрочное сохранение HyperLogLog-скетчей не удалось, повторим по расписанию");
+            } finally {
+                flushLock.unlock();
+            }
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${stat.sketch.flush-interval-ms:10000}")
+    public void flush() {
+        flushLock.lock();
+        try {
+            flushPending();
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    @PreDestroy
+    public void stop() {
+        try {
+            flush();
+            log.info("HyperLogLog-скетчи сохранены перед остановкой");
+        } catch (RuntimeException e) {
+            log.error("Не удалось сохранить HyperLogLog-скетчи перед остановкой, потеряно {}", pending.size(), e);
+        }
+    }
+
+    private void flushPending() {
+        List<HitSketchId> keys = new ArrayList<>(pending.keySet());
+        for (int from = 0; from < keys.size(); from += FLUSH_BATCH_SIZE) {
+            flush(keys.subList(from, Math.min(keys.size(), from + FLUSH_BATCH_SIZE)));
+        }
+    }
+
+    private void flush(List<HitSketchId> keys) {
+        Map<HitSketchId, HyperLogLog> batch = new HashMap<>();
+        for (HitSketchId key : keys) {
+            HyperLogLog sketch = pending.remove(key);
+            if (sketch != null) {
+                batch.put(key, sketch);
+                flushing.put(key, sketch);
+            }
+        }
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                for (Map.Entry<HitSketchId, HyperLogLog> entry : batch.entrySet()) {
+                    HitSketchId key = entry.getKey();
+                    HyperLogLog sketch = entry.getValue();
+                    HitSketch stored = hitSketchRepository.findForUpdate(key.getApp(), key.getUri(), key.getBucket())
+                            .orElseGet(() -> HitSketch.builder()
+                                    .app(key.getApp())
+                                    .uri(key.getUri())
+                                    .bucket(key.getBucket())
+                                    .build());
+                    HyperLogLog merged = sketch.copy();
+                    if (stored.getSketch() != null) {
+                        merged.merge(HyperLogLog.fromBytes(stored.getSketch()));
+                    }
+                    stored.setSketch(merged.toBytes());
+                    hitSketchRepository.save(stored);
+                }
+            });
+        } catch (RuntimeException e) {
+            log.error("Не удалось сохранить {} HyperLogLog-скетчей, они останутся в памяти", batch.size(), e);
+            batch.forEach((key, sketch) -> pending.merge(key, sketch, HyperLogLog::merge));
+            throw e;
+        } finally {
+            batch.forEach(flushing::remove);
+        }
+    }
+
+    public List<StatDto> getStat(LocalDateTime start, LocalDateTime end, List<String> uris) {
+        boolean withUris = uris != null && !uris.isEmpty();
+        LocalDateTime from = BUCKET.ceil(start);
+        LocalDateTime until = BUCKET.floor(end);
+        Set<String> uriSet = withUris ? new HashSet<>(uris) : Set.of();
+        Map<Map.Entry<String, String>, HyperLogLog> sketches = new HashMap<>();
+        if (!from.isBefore(until)) {
+            offer(sketches, withUris ? hitRepository.findVisitorsWithUris(uris, start, end)
+                    : hitRepository.findVisitorsWithoutUris(start, end));
+            return estimate(sketches);
+        }
+        List<HitSketch> stored = withUris
+                ? hitSketchRepository.findAllByUriInAndBucketGreaterThanEqualAndBucketLessThan(uris, from, until)
+                : hitSketchRepository.findAllByBucketGreaterThanEqualAndBucketLessThan(from, until);
+        for (HitSketch sketch : stored) {
+            merge(sketches, sketch.getApp(), sketch.getUri(), HyperLogLog.fromBytes(sketch.getSketch()));
+        }
+        mergeUnsaved(sketches, flushing, from, until, withUris, uriSet);
+        mergeUnsaved(sketches, pending, from, until, withUris, uriSet);
+        if (start.isBefore(from)) {
+            offer(sketches, withUris ? hitRepository.findVisitorsWithUrisFromUntil(uris, start, from)
+                    : hitRepository.findVisitorsWithoutUrisFromUntil(start, from));
+        }
+        offer(sketches, withUris ? hitRepository.findVisitorsWithUris(uris, until, end)
+                : hitRepository.findVisitorsWithoutUris(until, end));
+        return estimate(sketches);
+    }
+
+    private void mergeUnsaved(Map<Map.Entry<String, String>, HyperLogLog> sketches,
+                              Map<HitSketchId, HyperLogLog> unsaved, LocalDateTime from, LocalDateTime until,
+                              boolean withUris, Set<String> uriSet) {
+        for (HitSketchId key : unsaved.keySet()) {
+            if (!key.getBucket().isBefore(from) && key.getBucket().isBefore(until)
+                    && (!withUris || uriSet.contains(key.getUri()))) {
+                unsaved.computeIfPresent(key, (k, sketch) -> {
+                    merge(sketches, k.getApp(), k.getUri(), sketch.copy());
+                    return sketch;
+                });
+            }
+        }
+    }
+
+    private void merge(Map<Map.Entry<String, String>, HyperLogLog> sketches, String app, String uri,
+                       HyperLogLog sketch) {
+        sketches.merge(Map.entry(app, uri), sketch, HyperLogLog::merge);
+    }
+
+    private void offer(Map<Map.Entry<String, String>, HyperLogLog> sketches, List<HitVisitor> visitors) {
+        for (HitVisitor visitor : visitors) {
+            sketches.computeIfAbsent(Map.entry(visitor.getApp(), visitor.getUri()), k -> new HyperLogLog())
+                    .offer(visitor.getIp());
+        }
+    }
+
+    private List<StatDto> estimate(Map<Map.Entry<String, String>, HyperLogLog> sketches) {
+        return sketches.entrySet().stream()
+                .map(e -> new StatDto(e.getKey().getKey(), e.getKey().getValue(), e.getValue().estimate()))
+                .sorted(Comparator.comparing(StatDto::getHits).reversed())
+                .collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,231 @@
+package ru.practicum.ewm.stat.service.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+import ru.practicum.ewm.stat.dto.HitDto;
+import ru.practicum.ewm.stat.dto.HitImportDto;
+import ru.practicum.ewm.stat.service.archive.HitArchive;
+import ru.practicum.ewm.stat.service.mapper.HitMapper;
+import ru.practicum.ewm.stat.service.model.Hit;
+import ru.practicum.ewm.stat.service.repository.HitRepository;
+
+import javax.validation.Validator;
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+
+@Slf4j
+@Component
+public class HitTransferService {
+
+    private static final String CSV_HEADER = "app,uri,ip,timestamp";
+    private static final int CSV_FIELDS = 4;
+    private static final DateTimeFormatter TIMESTAMP_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+    private static final int WRITE_BUFFER_SIZE = 1 << 16;
+
+    private final HitWriter hitWriter;
+    private final HitRepository hitRepository;
+    private final HitArchive hitArchive;
+    private final ObjectMapper objectMapper;
+    private final Validator validator;
+    private final int batchSize;
+    private final long progressInterval;
+    private final Counter importedHits;
+    private final Counter rejectedHits;
+    private final Counter exportedHits;
+
+    public HitTransferService(HitWriter hitWriter,
+                              HitRepository hitRepository,
+                              HitArchive hitArchive,
+                              ObjectMapper objectMapper,
+                              Validator validator,
+                              MeterRegistry meterRegistry,
+                              @Value("${stat.transfer.batch-size:10000}") int batchSize,
+                              @Value("${stat.transfer.progress-interval:100000}") long progressInterval) {
+        this.hitWriter = hitWriter;
+        this.hitRepository = hitRepository;
+        this.hitArchive = hitArchive;
+        this.objectMapper = objectMapper;
+        this.validator = validator;
+        this.batchSize = batchSize;
+        this.progressInterval = progressInterval;
+        this.importedHits = meterRegistry.counter("stat.hits.received", "endpoint", "import");
+        this.rejectedHits = meterRegistry.counter("stat.import.rejected");
+        this.exportedHits = meterRegistry.counter("stat.export.rows");
+    }
+
+    public HitImportDto importHits(InputStream body, HitFormat format) throws IOException {
+        long started = System.nanoTime();
+        BufferedReader reader = new BufferedReader(new InputStreamReader(body, StandardCharsets.UTF_8));
+        List<Hit> batch = new ArrayList<>(batchSize);
+        long imported = 0;
+        long rejected = 0;
+        long lineNumber = 0;
+        long nextProgress = progressInterval;
+        String line;
+        while ((line = reader.readLine()) != null) {
+            lineNumber++;
+            if (line.isBlank() || (format == HitFormat.CSV && lineNumber == 1 && line.equals(CSV_HEADER))) {
+                continue;
+            }
+            HitDto hitDto = parse(line, format, lineNumber);
+            if (hitDto == null) {
+                rejected++;
+                rejectedHits.increment();
+                continue;
+            }
+            batch.add(HitMapper.toHit(hitDto));
+            if (batch.size() == batchSize) {
+                imported += save(batch);
+                batch = new ArrayList<>(batchSize);
+            }
+            if (imported + rejected >= nextProgress) {
+                log.info("Импорт хитов: сохранено {}, отклонено {}, {} в секунду", imported, rejected,
+                        perSecond(imported, started));
+                nextProgress += progressInterval;
+            }
+        }
+        if (!batch.isEmpty()) {
+            imported += save(batch);
+        }
+        long durationMs = (System.nanoTime() - started) / 1_000_000;
+        log.info("Импорт хитов завершён: сохранено {}, отклонено {} за {} мс", imported, rejected, durationMs);
+        return new HitImportDto(imported, rejected, durationMs);
+    }
+
+    @Transactional(readOnly = true)
+    public long exportHits(LocalDateTime start, LocalDateTime end, HitFormat format, OutputStream out)
+            throws IOException {
+        long started = System.nanoTime();
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), WRITE_BUFFER_SIZE);
+        if (format == HitFormat.CSV) {
+            writer.write(CSV_HEADER);
+            writer.write('\n');
+        }
+        ExportProgress progress = new ExportProgress(writer, format, started);
+        hitArchive.exportHits(start, end, progress::write);
+        hitRepository.exportAll(start, end, progress::write);
+        writer.flush();
+        log.info("Экспорт хитов с {} по {} завершён: выгружено {} за {} мс", start, end, progress.exported,
+                (System.nanoTime() - started) / 1_000_000);
+        return progress.exported;
+    }
+
+    private int save(List<Hit> batch) {
+        hitWriter.importAll(batch);
+        importedHits.increment(batch.size());
+        return batch.size();
+    }
+
+    private HitDto parse(String line, HitFormat format, long lineNumber) {
+        HitDto hitDto;
+        try {
+            hitDto = format == HitFormat.CSV ? parseCsv(line) : objectMapper.readValue(line, HitDto.class);
+        } catch (IOException | RuntimeException e) {
+            log.debug("Строка {} пропущена: {}", lineNumber, e.getMessage());
+            return null;
+        }
+        if (!validator.validate(hitDto).isEmpty()) {
+            log.debug("Строка {} пропущена: хит не прошёл проверку", lineNumber);
+            return null;
+        }
+        return hitDto;
+    }
+
+    private static HitDto parseCsv(String line) {
+        List<String> fields = new ArrayList<>(CSV_FIELDS);
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c != '"') {
+                    field.append(c);
+                } else if (i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    field.append('"');
+                    i++;
+                } else {
+                    quoted = false;
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else {
+                field.append(c);
+            }
+        }
+        fields.add(field.toString());
+        if (quoted || fields.size() != CSV_FIELDS) {
+            throw new IllegalArgumentException("ожидалось " + CSV_FIELDS + " поля, получено " + fields.size());
+        }
+        return HitDto.builder()
+                .app(fields.get(0))
+                .uri(fields.get(1))
+                .ip(fields.get(2))
+                .timestamp(LocalDateTime.parse(fields.get(3), TIMESTAMP_FORMAT))
+                .build();
+    }
+
+    private static String escapeCsv(String value) {
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+            return value;
+        }
+        return '"' + value.replace("\"", "\"\"") + '"';
+    }
+
+    private static long perSecond(long count, long startedNanos) {
+        return Math.round(count / ((System.nanoTime() - startedNanos) / 1e9));
+    }
+
+    private class ExportProgress {
+
+        private final Writer writer;
+        private final HitFormat format;
+        private final long started;
+        private long exported;
+
+        private ExportProgress(Writer writer, HitFormat format, long started) {
+            this.writer = writer;
+            this.format = format;
+            this.started = started;
+        }
+
+        private void write(Hit hit) {
+            try {
+                if (format == HitFormat.CSV) {
+                    writer.write(escapeCsv(hit.getApp()));
+                    writer.write(',');
+                    writer.write(escapeCsv(hit.getUri()));
+                    writer.write(',');
+                    writer.write(escapeCsv(hit.getIp()));
+                    writer.write(',');
+                    writer.write(TIMESTAMP_FORMAT.format(hit.getTimestamp()));
+                } else {
+                    writer.write(objectMapper.writeValueAsString(HitDto.builder()
+                            .app(hit.getApp())
+                            .uri(hit.getUri())
+                            .ip(hit.getIp())
+                            .timestamp(hit.getTimestamp())
+                            .build()));
+                }
+                writer.write('\n');
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            exportedHits.increment();
+            if (++exported % progressInterval == 0) {
+                log.info("Экспорт хитов: выгружено {}, {} в секунду", exported, perSecond(exported, started));
+            }
+        }
+    }
+}
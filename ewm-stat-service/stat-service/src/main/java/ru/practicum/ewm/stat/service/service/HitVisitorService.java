@@ -0,0 +1,139 @@
+package ru.practicum.ewm.stat.service.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import ru.practicum.ewm.stat.dto.StatDto;
+import ru.practicum.ewm.stat.service.exception.StartEndRangeException;
+import ru.practicum.ewm.stat.service.model.Hit;
+import ru.practicum.ewm.stat.service.model.UriVisitors;
+import ru.practicum.ewm.stat.service.repository.HitRepository;
+import ru.practicum.ewm.stat.service.repository.UriVisitorsRepository;
+
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+@Component
+public class HitVisitorService {
+
+    private static final Comparator<Hit> VISITOR_ORDER = Comparator
+            .comparing(Hit::getUri)
+            .thenComparing(Hit::getApp)
+            .thenComparing(Hit::getIp);
+
+    private final HitRepository hitRepository;
+    private final UriVisitorsRepository uriVisitorsRepository;
+    private final HitCompactionJob hitCompactionJob;
+    private final Map<List<String>, Boolean> knownVisitors;
+
+    public HitVisitorService(HitRepository hitRepository,
+                             UriVisitorsRepository uriVisitorsRepository,
+                             HitCompactionJob hitCompactionJob,
+                             @Value("${stat.visitors.cache-size:100000}") int cacheSize) {
+        this.hitRepository = hitRepository;
+        this.uriVisitorsRepository = uriVisitorsRepository;
+        this.hitCompactionJob = hitCompactionJob;
+        this.knownVisitors = Collections.synchronizedMap(new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<List<String>, Boolean> eldest) {
+                return size() > cacheSize;
+            }
+        });
+    }
+
+    public void addAll(List<Hit> hits) {
+        Map<List<String>, Hit> firstVisits = new HashMap<>();
+        Map<List<String>, UriVisitors> deltas = new HashMap<>();
+        for (Hit hit : hits) {
+            List<String> uriKey = List.of(hit.getApp(), hit.getUri());
+            deltas.merge(uriKey, new UriVisitors(hit.getApp(), hit.getUri(), 0, hit.getTimestamp(), hit.getTimestamp()),
+                    (a, b) -> {
+                        a.setFirstHit(min(a.getFirstHit(), b.getFirstHit()));
+                        a.setLastHit(max(a.getLastHit(), b.getLastHit()));
+                        return a;
+                    });
+            List<String> visitorKey = List.of(hit.getApp(), hit.getUri(), hit.getIp());
+            if (!knownVisitors.containsKey(visitorKey)) {
+                firstVisits.merge(visitorKey, hit, (a, b) -> a.getTimestamp().isAfter(b.getTimestamp()) ? b : a);
+            }
+        }
+        List<Hit> candidates = firstVisits.values().stream()
+                .sorted(VISITOR_ORDER)
+                .collect(Collectors.toList());
+        uriVisitorsRepository.insertVisitors(candidates).forEach((key, inserted) -> {
+            UriVisitors delta = deltas.get(key);
+            delta.setVisitors(delta.getVisitors() + inserted);
+        });
+        uriVisitorsRepository.addVisitors(deltas.values());
+        rememberAfterCommit(firstVisits.keySet());
+    }
+
+    public List<StatDto> getStat(LocalDateTime start, LocalDateTime end, List<String> uris) {
+        return getStat(start, end, uris, uncoveredUris -> {
+            checkRawVisitors(start);
+            return hitRepository.findAllUniqueIpWithUris(uncoveredUris, start, end);
+        });
+    }
+
+    public boolean isCompacted(LocalDateTime from) {
+        LocalDateTime compactedBefore = hitCompactionJob.getCompactedBefore();
+        return compactedBefore != null && from.isBefore(compactedBefore);
+    }
+
+    public void checkRawVisitors(LocalDateTime from) {
+        if (isCompacted(from)) {
+            throw new StartEndRangeException("Точное число уникальных посетителей доступно только с "
+                    + hitCompactionJob.getCompactedBefore() + ", для более раннего диапазона используйте approx=true");
+        }
+    }
+
+    public List<StatDto> getStat(LocalDateTime start, LocalDateTime end, List<String> uris,
+                                 Function<List<String>, List<StatDto>> uncoveredLoader) {
+        boolean withUris = uris != null && !uris.isEmpty();
+        List<UriVisitors> counters = withUris ? uriVisitorsRepository.findAllByUriIn(uris) : uriVisitorsRepository.findAll();
+        List<StatDto> stats = new ArrayList<>();
+        Set<List<String>> uncovered = new HashSet<>();
+        for (UriVisitors counter : counters) {
+            if (!counter.getFirstHit().isBefore(start) && !counter.getLastHit().isAfter(end)) {
+                stats.add(new StatDto(counter.getApp(), counter.getUri(), counter.getVisitors()));
+            } else {
+                uncovered.add(List.of(counter.getApp(), counter.getUri()));
+            }
+        }
+        if (!uncovered.isEmpty()) {
+            List<String> uncoveredUris = uncovered.stream()
+                    .map(key -> key.get(1))
+                    .distinct()
+                    .collect(Collectors.toList());
+            uncoveredLoader.apply(uncoveredUris).stream()
+                    .filter(stat -> uncovered.contains(List.of(stat.getApp(), stat.getUri())))
+                    .forEach(stats::add);
+        }
+        stats.sort(Comparator.comparing(StatDto::getHits).reversed());
+        return stats;
+    }
+
+    private void rememberAfterCommit(Set<List<String>> visitors) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            visitors.forEach(key -> knownVisitors.put(key, Boolean.TRUE));
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                visitors.forEach(key -> knownVisitors.put(key, Boolean.TRUE));
+            }
+        });
+    }
+
+    private static LocalDateTime min(LocalDateTime a, LocalDateTime b) {
+        return a.isAfter(b) ? b : a;
+    }
+
+    private static LocalDateTime max(LocalDateTime a, LocalDateTime b) {
+        return a.isBefore(b) ? b : a;
+    }
+}
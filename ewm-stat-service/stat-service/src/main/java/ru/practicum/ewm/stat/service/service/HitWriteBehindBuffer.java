@@ -0,0 +1,216 @@
+package ru.practicum.ewm.stat.service.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import ru.practicum.ewm.stat.service.exception.HitBufferOverflowException;
+import ru.practicum.ewm.stat.service.model.Hit;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+@Slf4j
+@Component
+public class HitWriteBehindBuffer {
+
+    private final HitWriter hitWriter;
+    private final MeterRegistry meterRegistry;
+    private final boolean enabled;
+    private final int batchSize;
+    private final int writerThreads;
+    private final long flushIntervalNanos;
+    private final long blockTimeoutMillis;
+    private final long shutdownTimeoutMillis;
+    private final OverflowPolicy overflowPolicy;
+    private final BlockingQueue<PendingHit> queue;
+    private final List<Thread> flushers = new ArrayList<>();
+
+    private Timer flushTimer;
+    private Counter droppedCounter;
+    private Counter rejectedCounter;
+    private Counter failedCounter;
+    private volatile boolean running;
+
+    public HitWriteBehindBuffer(HitWriter hitWriter,
+                                MeterRegistry meterRegistry,
+                                @Value("${stat.write-behind.enabled:false}") boolean enabled,
+                                @Value("${stat.write-behind.capacity:100000}") int capacity,
+                                @Value("${stat.write-behind.batch-size:1000}") int batchSize,
+                                @Value("${stat.write-behind.writer-threads:1}") int writerThreads,
+                                @Value("${stat.write-behind.flush-interval-ms:200}") long flushIntervalMillis,
+                                @Value("${stat.write-behind.block-timeout-ms:1000}") long blockTimeoutMillis,
+                                @Value("${stat.write-behind.shutdown-timeout-ms:5000}") long shutdownTimeoutMillis,
+                                @Value("${stat.write-behind.overflow-policy:BLOCK}") OverflowPolicy overflowPolicy) {
+        this.hitWriter = hitWriter;
+        this.meterRegistry = meterRegistry;
+        this.enabled = enabled;
+        this.batchSize = batchSize;
+        this.writerThreads = writerThreads;
+        this.flushIntervalNanos = TimeUnit.MILLISECONDS.toNanos(flushIntervalMillis);
+        this.blockTimeoutMillis = blockTimeoutMillis;
+        this.shutdownTimeoutMillis = shutdownTimeoutMillis;
+        this.overflowPolicy = overflowPolicy;
+        this.queue = new ArrayBlockingQueue<>(enabled ? capacity : 1);
+    }
+
+    @PostConstruct
+    public void start() {
+        if (!enabled) {
+            return;
+        }
+        meterRegistry.gauge("stat.hits.buffer.depth", queue, BlockingQueue::size);
+        flushTimer = meterRegistry.timer("stat.hits.buffer.flush");
+        droppedCounter = meterRegistry.counter("stat.hits.buffer.overflow", "result", "dropped");
+        rejectedCounter = meterRegistry.counter("stat.hits.buffer.overflow", "result", "rejected");
+        failedCounter = meterRegistry.counter("stat.hits.buffer.failed");
+        running = true;
+        for (int i = 0; i < writerThreads; i++) {
+            Thread flusher = new Thread(this::flushLoop, "hit-write-behind-" + i);
+            flusher.start();
+            flushers.add(flusher);
+        }
+        log.info("Отложенная запись запросов включена, политика переполнения {}, потоков записи {}",
+                overflowPolicy, writerThreads);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void add(Hit hit) {
+        if (offer(new PendingHit(hit, null))) {
+            return;
+        }
+        if (overflowPolicy == OverflowPolicy.DROP) {
+            droppedCounter.increment();
+            return;
+        }
+        rejectedCounter.increment();
+        throw new HitBufferOverflowException("Буфер запросов переполнен");
+    }
+
+    public CompletableFuture<Hit> submit(Hit hit) {
+        PendingHit pending = new PendingHit(hit, new CompletableFuture<>());
+        if (!offer(pending)) {
+            rejectedCounter.increment();
+            throw new HitBufferOverflowException("Буфер запросов переполнен");
+        }
+        return pending.result;
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        if (!enabled) {
+            return;
+        }
+        running = false;
+        long deadline = System.currentTimeMillis() + shutdownTimeoutMillis;
+        boolean flushed = true;
+        for (Thread flusher : flushers) {
+            flusher.join(Math.max(1, deadline - System.currentTimeMillis()));
+            flushed &= !flusher.isAlive();
+        }
+        List<PendingHit> unsaved = new ArrayList<>();
+        queue.drainTo(unsaved);
+        if (!flushed || !unsaved.isEmpty()) {
+            HitBufferOverflowException e = new HitBufferOverflowException("Буфер запросов остановлен");
+            unsaved.forEach(pending -> pending.fail(e));
+            log.warn("Отложенная запись запросов остановлена, не сохранено {} запросов", unsaved.size());
+        } else {
+            log.info("Отложенная запись запросов остановлена, буфер сброшен");
+        }
+    }
+
+    private boolean offer(PendingHit pending) {
+        if (!running) {
+            throw new HitBufferOverflowException("Буфер запросов остановлен");
+        }
+        if (overflowPolicy != OverflowPolicy.BLOCK) {
+            return queue.offer(pending);
+        }
+        try {
+            return queue.offer(pending, blockTimeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new HitBufferOverflowException("Ожидание места в буфере запросов прервано");
+        }
+    }
+
+    private void flushLoop() {
+        List<PendingHit> batch = new ArrayList<>(batchSize);
+        while (running || !queue.isEmpty()) {
+            try {
+                fillBatch(batch);
+            } catch (InterruptedException e) {
+                running = false;
+            }
+            if (!batch.isEmpty()) {
+                flush(batch);
+                batch.clear();
+            }
+        }
+    }
+
+    private void fillBatch(List<PendingHit> batch) throws InterruptedException {
+        long deadline = System.nanoTime() + flushIntervalNanos;
+        while (batch.size() < batchSize) {
+            queue.drainTo(batch, batchSize - batch.size());
+            long remaining = deadline - System.nanoTime();
+            if (batch.size() >= batchSize || remaining <= 0 || (!running && queue.isEmpty())) {
+                return;
+            }
+            PendingHit pending = queue.poll(remaining, TimeUnit.NANOSECONDS);
+            if (pending != null) {
+                batch.add(pending);
+            }
+        }
+    }
+
+    private void flush(List<PendingHit> batch) {
+        List<Hit> hits = batch.stream()
+                .map(pending -> pending.hit)
+                .collect(Collectors.toList());
+        try {
+            flushTimer.record(() -> hitWriter.writeAll(hits));
+        } catch (RuntimeException e) {
+            failedCounter.increment(batch.size());
+            log.error("Не удалось сохранить пакет из {} запросов", batch.size(), e);
+            batch.forEach(pending -> pending.fail(e));
+            return;
+        }
+        batch.forEach(PendingHit::complete);
+    }
+
+    private static class PendingHit {
+
+        private final Hit hit;
+        private final CompletableFuture<Hit> result;
+
+        private PendingHit(Hit hit, CompletableFuture<Hit> result) {
+            this.hit = hit;
+            this.result = result;
+        }
+
+        private void complete() {
+            if (result != null) {
+                result.complete(hit);
+            }
+        }
+
+        private void fail(RuntimeException e) {
+            if (result != null) {
+                result.completeExceptionally(e);
+            }
+        }
+    }
+}
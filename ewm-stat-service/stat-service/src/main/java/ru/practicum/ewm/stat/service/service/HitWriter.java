@@ -0,0 +1,105 @@
+package ru.practicum.ewm.stat.service.service;
+
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.practicum.ewm.stat.service.dictionary.HitDictionary;
+import ru.practicum.ewm.stat.service.model.Hit;
+import ru.practicum.ewm.stat.service.repository.HitRepository;
+import ru.practicum.ewm.stat.service.repository.HitRollupRepository;
+
+import java.util.List;
+
+@Component
+public class HitWriter {
+
+    private final HitDictionary hitDictionary;
+    private final HitRepository hitRepository;
+    private final HitRollupRepository hitRollupRepository;
+    private final HitSketchService hitSketchService;
+    private final HitVisitorService hitVisitorService;
+    private final LiveHitCounters liveHitCounters;
+    private final TopHitsService topHitsService;
+    private final TrendingService trendingService;
+    private final StatMetrics statMetrics;
+    private final TransactionTemplate transactionTemplate;
+
+    public HitWriter(HitDictionary hitDictionary,
+                     HitRepository hitRepository,
+                     HitRollupRepository hitRollupRepository,
+                     HitSketchService hitSketchService,
+                     HitVisitorService hitVisitorService,
+                     LiveHitCounters liveHitCounters,
+                     TopHitsService topHitsService,
+                     TrendingService trendingService,
+                     StatMetrics statMetrics,
+                     PlatformTransactionManager transactionManager) {
+        this.hitDictionary = hitDictionary;
+        this.hitRepository = hitRepository;
+        this.hitRollupRepository = hitRollupRepository;
+        this.hitSketchService = hitSketchService;
+        this.hitVisitorService = hitVisitorService;
+        this.liveHitCounters = liveHitCounters;
+        this.topHitsService = topHitsService;
+        this.trendingService = trendingService;
+        this.statMetrics = statMetrics;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    public Hit write(Hit hit) {
+        register(List.of(hit));
+        return transactionTemplate.execute(status -> save(hit));
+    }
+
+    public void writeAll(List<Hit> hits) {
+        register(hits);
+        transactionTemplate.executeWithoutResult(status -> {
+            hitRepository.saveAllInBatch(hits);
+            aggregate(hits);
+        });
+    }
+
+    public void importAll(List<Hit> hits) {
+        importAll(hits, () -> {
+        });
+    }
+
+    public void importAll(List<Hit> hits, Runnable inTransaction) {
+        register(hits);
+        transactionTemplate.executeWithoutResult(status -> {
+            hitRepository.copyAll(hits);
+            aggregate(hits);
+            inTransaction.run();
+        });
+    }
+
+    private void register(List<Hit> hits) {
+        if (TransactionSynchronizationManager.isActualTransactionActive()) {
+            throw new IllegalStateException("Регистрация в словаре внутри транзакции записи хитов");
+        }
+        hits.forEach(hitDictionary::register);
+    }
+
+    private Hit save(Hit hit) {
+        Hit saved = hitRepository.save(hit);
+        hitRollupRepository.addAll(List.of(saved));
+        hitVisitorService.addAll(List.of(saved));
+        hitSketchService.addAll(List.of(saved));
+        liveHitCounters.addAll(List.of(saved));
+        topHitsService.addAll(List.of(saved));
+        trendingService.addAll(List.of(saved));
+        statMetrics.hitsWritten(1);
+        return saved;
+    }
+
+    private void aggregate(List<Hit> hits) {
+        hitRollupRepository.addAll(hits);
+        hitVisitorService.addAll(hits);
+        hitSketchService.addAll(hits);
+        liveHitCounters.addAll(hits);
+        topHitsService.addAll(hits);
+        trendingService.addAll(hits);
+        statMetrics.hitsWritten(hits.size());
+    }
+}
@@ -0,0 +1,54 @@
+package ru.practicum.ewm.stat.service.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import ru.practicum.ewm.stat.dto.HitDto;
+import ru.practicum.ewm.stat.service.mapper.HitMapper;
+import ru.practicum.ewm.stat.service.model.Hit;
+import ru.practicum.ewm.stat.service.repository.LegacyHitRepository;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+@Slf4j
+@Component
+public class LegacyHitMigration {
+
+    private final LegacyHitRepository legacyHitRepository;
+    private final HitWriter hitWriter;
+    private final int batchSize;
+
+    public LegacyHitMigration(LegacyHitRepository legacyHitRepository,
+                              HitWriter hitWriter,
+                              @Value("${stat.transfer.batch-size:10000}") int batchSize) {
+        this.legacyHitRepository = legacyHitRepository;
+        this.hitWriter = hitWriter;
+        this.batchSize = batchSize;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void migrate() {
+        if (!legacyHitRepository.exists() || legacyHitRepository.isDictionaryEncoded()) {
+            return;
+        }
+        log.info("Перенос хитов из {} со словарным кодированием app, uri и ip", LegacyHitRepository.LEGACY_TABLE);
+        long lastId = 0;
+        long migrated = 0;
+        List<HitDto> batch;
+        while (!(batch = legacyHitRepository.findAllAfter(lastId, batchSize)).isEmpty()) {
+            long upTo = batch.get(batch.size() - 1).getId();
+            List<Hit> hits = batch.stream()
+                    .map(HitMapper::toHit)
+                    .collect(Collectors.toList());
+            hitWriter.importAll(hits, () -> legacyHitRepository.deleteUpTo(upTo));
+            lastId = upTo;
+            migrated += hits.size();
+            log.info("Перенесено {} хитов из {}", migrated, LegacyHitRepository.LEGACY_TABLE);
+        }
+        legacyHitRepository.drop();
+        log.info("Перенос хитов завершён, {} удалена", LegacyHitRepository.LEGACY_TABLE);
+    }
+}
@@ -0,0 +1,220 @@
+package ru.practicum.ewm.stat.service.service;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import ru.practicum.ewm.stat.dto.StatDto;
+import ru.practicum.ewm.stat.service.model.Hit;
+import ru.practicum.ewm.stat.service.repository.StatStreamRepository;
+import ru.practicum.ewm.stat.service.sketch.HyperLogLog;
+import ru.practicum.ewm.stat.service.sketch.LongHashSet;
+
+import javax.annotation.PostConstruct;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Collectors;
+
+@Slf4j
+@Component
+public class LiveHitCounters {
+
+    private static final long EVICTION_GRACE_SECONDS = 60;
+    private static final long COUNTER_OVERHEAD_BYTES = 160;
+
+    private final StatStreamRepository statStreamRepository;
+    private final boolean enabled;
+    private final long windowSeconds;
+    private final long maxEntries;
+    private final ConcurrentNavigableMap<Long, Slot> slots = new ConcurrentSkipListMap<>();
+    private final AtomicLong entries = new AtomicLong();
+    private volatile long evictedUntil = Long.MIN_VALUE;
+
+    public LiveHitCounters(StatStreamRepository statStreamRepository,
+                           MeterRegistry meterRegistry,
+                           @Value("${stat.live.enabled:true}") boolean enabled,
+                           @Value("${stat.live.window-seconds:900}") long windowSeconds,
+                           @Value("${stat.live.max-entries:2000000}") long maxEntries) {
+        this.statStreamRepository = statStreamRepository;
+        this.enabled = enabled;
+        this.windowSeconds = windowSeconds;
+        this.maxEntries = maxEntries;
+        meterRegistry.gauge("stat.live.entries", entries);
+        meterRegistry.gauge("stat.live.memory.bytes", this, LiveHitCounters::sizeInBytes);
+        meterRegistry.gauge("stat.live.coverage.seconds", this, LiveHitCounters::coverageSeconds);
+    }
+
+    @PostConstruct
+    public void rebuild() {
+        if (!enabled) {
+            return;
+        }
+        long since = coveredSince();
+        LongAdder restored = new LongAdder();
+        statStreamRepository.streamVisitorSecondCounts(LocalDateTime.now().minusSeconds(windowSeconds), count -> {
+            add(count.getApp(), count.getUri(), count.getIp(), toSecond(count.getSecond()), count.getHits(), since);
+            restored.add(count.getHits());
+        });
+        log.info("Счётчики последних {} секунд восстановлены из {} хитов", windowSeconds, restored.sum());
+    }
+
+    public boolean covers(LocalDateTime start) {
+        return enabled && toSecond(start) >= coveredSince();
+    }
+
+    public void addAll(List<Hit> hits) {
+        if (!enabled) {
+            return;
+        }
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            add(hits);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                add(hits);
+            }
+        });
+    }
+
+    public List<StatDto> getStat(LocalDateTime start, LocalDateTime end, List<String> uris, boolean unique) {
+        Set<String> uriSet = uris == null || uris.isEmpty() ? null : new HashSet<>(uris);
+        Map<List<String>, LongAdder> hits = new HashMap<>();
+        Map<List<String>, LongHashSet> visitors = new HashMap<>();
+        for (Slot slot : slots.subMap(toSecond(start), true, toSecond(end), true).values()) {
+            slot.counters.forEach((key, counter) -> {
+                if (uriSet != null && !uriSet.contains(key.get(1))) {
+                    return;
+                }
+                if (unique) {
+                    counter.copyIpsInto(visitors.computeIfAbsent(key, k -> new LongHashSet()));
+                } else {
+                    hits.computeIfAbsent(key, k -> new LongAdder()).add(counter.hits.sum());
+                }
+            });
+        }
+        List<StatDto> stats = unique
+                ? visitors.entrySet().stream()
+                .map(e -> new StatDto(e.getKey().get(0), e.getKey().get(1), (long) e.getValue().size()))
+                .collect(Collectors.toList())
+                : hits.entrySet().stream()
+                .map(e -> new StatDto(e.getKey().get(0), e.getKey().get(1), e.getValue().sum()))
+                .collect(Collectors.toList());
+        stats.sort(Comparator.comparing(StatDto::getHits).reversed());
+        return stats;
+    }
+
+    @Scheduled(fixedDelayString = "${stat.live.eviction-interval-ms:1000}")
+    public void evict() {
+        if (!enabled) {
+            return;
+        }
+        long threshold = toSecond(LocalDateTime.now()) - windowSeconds - EVICTION_GRACE_SECONDS;
+        ConcurrentNavigableMap<Long, Slot> expired = slots.headMap(threshold);
+        for (Long second : new ArrayList<>(expired.keySet())) {
+            Slot slot = slots.remove(second);
+            if (slot != null) {
+                entries.addAndGet(-slot.entries.get());
+            }
+        }
+    }
+
+    private void add(List<Hit> hits) {
+        long since = coveredSince();
+        for (Hit hit : hits) {
+            add(hit.getApp(), hit.getUri(), hit.getIp(), toSecond(hit.getTimestamp()), 1, since);
+        }
+    }
+
+    private void add(String app, String uri, String ip, long second, long hits, long since) {
+        if (second < since || second < evictedUntil) {
+            return;
+        }
+        entries.addAndGet(slots.computeIfAbsent(second, s -> new Slot()).add(app, uri, ip, hits));
+        while (entries.get() > maxEntries) {
+            Map.Entry<Long, Slot> oldest = slots.pollFirstEntry();
+            if (oldest == null) {
+                break;
+            }
+            evictedUntil = Math.max(evictedUntil, oldest.getKey() + 1);
+            entries.addAndGet(-oldest.getValue().entries.get());
+            log.debug("Счётчики за {} вытеснены из памяти из-за лимита {}", oldest.getKey(), maxEntries);
+        }
+    }
+
+    private long coveredSince() {
+        return Math.max(toSecond(LocalDateTime.now()) - windowSeconds, evictedUntil);
+    }
+
+    private double coverageSeconds() {
+        return enabled ? Math.max(0, toSecond(LocalDateTime.now()) - coveredSince()) : 0;
+    }
+
+    private double sizeInBytes() {
+        long bytes = 0;
+        for (Slot slot : slots.values()) {
+            for (Counter counter : slot.counters.values()) {
+                bytes += COUNTER_OVERHEAD_BYTES + counter.ipsSizeInBytes();
+            }
+        }
+        return bytes;
+    }
+
+    private static long toSecond(LocalDateTime time) {
+        return time.toEpochSecond(ZoneOffset.UTC);
+    }
+
+    private static class Slot {
+
+        private final Map<List<String>, Counter> counters = new ConcurrentHashMap<>();
+        private final AtomicLong entries = new AtomicLong();
+
+        private long add(String app, String uri, String ip, long hits) {
+            long added = 0;
+            List<String> key = List.of(app, uri);
+            Counter counter = counters.get(key);
+            if (counter == null) {
+                Counter created = new Counter();
+                counter = counters.putIfAbsent(key, created);
+                if (counter == null) {
+                    counter = created;
+                    added++;
+                }
+            }
+            counter.hits.add(hits);
+            if (counter.addIp(HyperLogLog.hash(ip))) {
+                added++;
+            }
+            entries.addAndGet(added);
+            return added;
+        }
+    }
+
+    private static class Counter {
+
+        private final LongAdder hits = new LongAdder();
+        private final LongHashSet ips = new LongHashSet();
+
+        private synchronized boolean addIp(long hash) {
+            return ips.add(hash);
+        }
+
+        private synchronized void copyIpsInto(LongHashSet target) {
+            target.addAll(ips);
+        }
+
+        private synchronized long ipsSizeInBytes() {
+            return ips.sizeInBytes();
+        }
+    }
+}
@@ -0,0 +1,7 @@
+package ru.practicum.ewm.stat.service.service;
+
+public enum OverflowPolicy {
+    BLOCK,
+    DROP,
+    REJECT
+}
@@ -0,0 +1,99 @@
+package ru.practicum.ewm.stat.service.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+import java.util.function.ToIntFunction;
+
+@Slf4j
+@Component
+public class StatMetrics {
+
+    private final MeterRegistry meterRegistry;
+    private final Counter receivedHits;
+    private final Counter receivedBatches;
+    private final Counter writtenHits;
+    private final LongAdder writtenSinceLog = new LongAdder();
+    private long lastLogNanos = System.nanoTime();
+
+    public StatMetrics(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+        this.receivedHits = meterRegistry.counter("stat.hits.received", "endpoint", "hit");
+        this.receivedBatches = meterRegistry.counter("stat.hits.received", "endpoint", "batch");
+        this.writtenHits = meterRegistry.counter("stat.hits.written");
+    }
+
+    public void hitReceived() {
+        receivedHits.increment();
+    }
+
+    public void batchReceived(int size) {
+        receivedBatches.increment(size);
+    }
+
+    public void hitsWritten(int count) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            addWritten(count);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                addWritten(count);
+            }
+        });
+    }
+
+    <T> T recordQuery(StatSource source, boolean unique, List<String> uris, Supplier<T> query,
+                      ToIntFunction<T> resultSize) {
+        Tags tags = Tags.of(
+                "source", source.name().toLowerCase(Locale.ROOT),
+                "unique", String.valueOf(unique),
+                "uris", String.valueOf(uris != null && !uris.isEmpty()));
+        Timer.Sample sample = Timer.start(meterRegistry);
+        String outcome = "error";
+        try {
+            T result = query.get();
+            outcome = "success";
+            DistributionSummary.builder("stat.query.results")
+                    .tags(tags)
+                    .register(meterRegistry)
+                    .record(resultSize.applyAsInt(result));
+            return result;
+        } finally {
+            sample.stop(Timer.builder("stat.query")
+                    .tags(tags)
+                    .tag("outcome", outcome)
+                    .register(meterRegistry));
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${stat.metrics.log-interval-ms:60000}")
+    public synchronized void logIngestion() {
+        long now = System.nanoTime();
+        long written = writtenSinceLog.sumThenReset();
+        double seconds = (now - lastLogNanos) / 1e9;
+        lastLogNanos = now;
+        if (written > 0) {
+            log.info("Сохранено {} запросов за {} с, {} в секунду", written, Math.round(seconds),
+                    Math.round(written / seconds));
+        }
+    }
+
+    private void addWritten(int count) {
+        writtenHits.increment(count);
+        writtenSinceLog.add(count);
+    }
+}
@@ -1,14 +1,32 @@
 package ru.practicum.ewm.stat.service.service;
 
+import ru.practicum.ewm.stat.dto.HistogramDto;
 import ru.practicum.ewm.stat.dto.HitDto;
 import ru.practicum.ewm.stat.dto.StatDto;
+import ru.practicum.ewm.stat.dto.TopStatDto;
+import ru.practicum.ewm.stat.dto.TrendingStatDto;
+import ru.practicum.ewm.stat.service.model.RollupGranularity;
 
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.function.Consumer;
 
 public interface StatService {
 
     HitDto createHit(HitDto hitDto);
 
-    List<StatDto> getStat(LocalDateTime start, LocalDateTime end, List<String> uris, Boolean unique);
+    void createHits(List<HitDto> hits);
+
+    List<StatDto> getStat(LocalDateTime start, LocalDateTime end, List<String> uris, Boolean unique, Boolean approx);
+
+    void streamStat(LocalDateTime start, LocalDateTime end, List<String> uris, Boolean unique, Consumer<StatDto> consumer);
+
+    List<TopStatDto> getTop(int n, int windowMinutes);
+
+    List<TrendingStatDto> getTrending(String prefix, int n);
+
+    HistogramDto getHistogram(LocalDateTime start, LocalDateTime end, List<String> uris, RollupGranularity interval,
+                              Boolean unique);
+
+    void checkDate(LocalDateTime start, LocalDateTime end);
 }
@@ -3,50 +3,284 @@ package ru.practicum.ewm.stat.service.service;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import ru.practicum.ewm.stat.dto.HistogramDto;
 import ru.practicum.ewm.stat.dto.HitDto;
 import ru.practicum.ewm.stat.dto.StatDto;
+import ru.practicum.ewm.stat.dto.TopStatDto;
+import ru.practicum.ewm.stat.dto.TrendingStatDto;
+import ru.practicum.ewm.stat.service.archive.HitArchive;
 import ru.practicum.ewm.stat.service.exception.StartEndRangeException;
 import ru.practicum.ewm.stat.service.mapper.HitMapper;
 import ru.practicum.ewm.stat.service.model.Hit;
+import ru.practicum.ewm.stat.service.model.RollupGranularity;
 import ru.practicum.ewm.stat.service.repository.HitRepository;
+import ru.practicum.ewm.stat.service.repository.HitVisitor;
+import ru.practicum.ewm.stat.service.repository.StatRange;
+import ru.practicum.ewm.stat.service.repository.StatStreamRepository;
+import ru.practicum.ewm.stat.service.sketch.HyperLogLog;
+import ru.practicum.ewm.stat.service.sketch.LongHashSet;
 
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
 public class StatServiceImpl implements StatService {
 
+    private final HitWriter hitWriter;
     private final HitRepository hitRepository;
+    private final HitWriteBehindBuffer hitBuffer;
+    private final HitRollupService hitRollupService;
+    private final HitSketchService hitSketchService;
+    private final HitVisitorService hitVisitorService;
+    private final LiveHitCounters liveHitCounters;
+    private final TopHitsService topHitsService;
+    private final TrendingService trendingService;
+    private final HitHistogramService hitHistogramService;
+    private final HitArchive hitArchive;
+    private final StatStreamRepository statStreamRepository;
+    private final StatMetrics statMetrics;
 
     @Override
-    @Transactional
     public HitDto createHit(HitDto hitDto) {
+        statMetrics.hitReceived();
         Hit hit = HitMapper.toHit(hitDto);
-        return HitMapper.toHitDto(hitRepository.save(hit));
+        if (hitBuffer.isEnabled()) {
+            hitBuffer.add(hit);
+            return HitMapper.toHitDto(hit);
+        }
+        return HitMapper.toHitDto(hitWriter.write(hit));
     }
 
     @Override
-    public List<StatDto> getStat(LocalDateTime start, LocalDateTime end, List<String> uris, Boolean unique) {
+    public void createHits(List<HitDto> hits) {
+        statMetrics.batchReceived(hits.size());
+        List<Hit> newHits = hits.stream()
+                .map(HitMapper::toHit)
+                .collect(Collectors.toList());
+        if (hitBuffer.isEnabled()) {
+            newHits.forEach(hitBuffer::add);
+            return;
+        }
+        hitWriter.writeAll(newHits);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<StatDto> getStat(LocalDateTime start, LocalDateTime end, List<String> uris, Boolean unique,
+                                 Boolean approx) {
         checkDate(start, end);
-        List<StatDto> stats;
-        if (uris == null || uris.isEmpty()) {
-            if (unique) {
-                stats = hitRepository.findAllUniqueIpWithoutUris(start, end);
+        StatSource source = chooseSource(start, unique, approx);
+        return statMetrics.recordQuery(source, unique, uris,
+                () -> getStat(source, start, end, uris, unique, approx), List::size);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public void streamStat(LocalDateTime start, LocalDateTime end, List<String> uris, Boolean unique,
+                           Consumer<StatDto> consumer) {
+        checkDate(start, end);
+        StatSource source = chooseSource(start, unique, false);
+        statMetrics.recordQuery(source, unique, uris, () -> {
+            AtomicInteger rows = new AtomicInteger();
+            streamStat(source, start, end, uris, unique, stat -> {
+                rows.incrementAndGet();
+                consumer.accept(stat);
+            });
+            return rows.get();
+        }, Integer::intValue);
+    }
+
+    @Override
+    public List<TopStatDto> getTop(int n, int windowMinutes) {
+        return statMetrics.recordQuery(StatSource.TOP, false, null,
+                () -> topHitsService.getTop(n, windowMinutes), List::size);
+    }
+
+    @Override
+    public List<TrendingStatDto> getTrending(String prefix, int n) {
+        return statMetrics.recordQuery(StatSource.TRENDING, false, null,
+                () -> trendingService.getTrending(prefix, n), List::size);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public HistogramDto getHistogram(LocalDateTime start, LocalDateTime end, List<String> uris,
+                                     RollupGranularity interval, Boolean unique) {
+        checkDate(start, end);
+        return statMetrics.recordQuery(StatSource.HISTOGRAM, unique, uris,
+                () -> hitHistogramService.getHistogram(start, end, uris, interval, unique),
+                histogram -> histogram.getSeries().size());
+    }
+
+    private StatSource chooseSource(LocalDateTime start, boolean unique, boolean approx) {
+        if (liveHitCounters.covers(start)) {
+            return StatSource.LIVE;
+        }
+        if (unique && approx && !hitArchive.reaches(start)) {
+            return StatSource.SKETCH;
+        }
+        return unique ? StatSource.VISITORS : StatSource.ROLLUP;
+    }
+
+    private List<StatDto> getStat(StatSource source, LocalDateTime start, LocalDateTime end, List<String> uris,
+                                  boolean unique, boolean approx) {
+        switch (source) {
+            case LIVE:
+                return liveHitCounters.getStat(start, end, uris, unique);
+            case SKETCH:
+                return hitSketchService.getStat(start, end, uris);
+            case VISITORS:
+                if (hitArchive.reaches(start)) {
+                    return hitVisitorService.getStat(start, end, uris,
+                            uncovered -> getArchivedVisitors(start, end, uncovered));
+                }
+                return hitVisitorService.getStat(start, end, uris);
+            default:
+                if (hitArchive.reaches(start)) {
+                    return getArchivedHits(start, end, uris);
+                }
+                return hitRollupService.getStat(start, end, uris);
+        }
+    }
+
+    private void streamStat(StatSource source, LocalDateTime start, LocalDateTime end, List<String> uris,
+                            boolean unique, Consumer<StatDto> consumer) {
+        switch (source) {
+            case LIVE:
+                liveHitCounters.getStat(start, end, uris, unique).forEach(consumer);
+                return;
+            case VISITORS:
+                if (hitArchive.reaches(start)) {
+                    streamArchivedVisitors(start, end, uris, consumer);
+                } else {
+                    if (hitVisitorService.isCompacted(start)
+                            && !statStreamRepository.findUncoveredVisitors(start, end, uris).isEmpty()) {
+                        hitVisitorService.checkRawVisitors(start);
+                    }
+                    statStreamRepository.streamVisitors(start, end, uris, true, consumer);
+                }
+                return;
+            default:
+                if (hitArchive.reaches(start)) {
+                    streamArchivedHits(start, end, uris, consumer);
+                } else {
+                    statStreamRepository.streamHits(hitRollupService.ranges(start, end), uris, consumer);
+                }
+        }
+    }
+
+    private void streamArchivedHits(LocalDateTime start, LocalDateTime end, List<String> uris,
+                                    Consumer<StatDto> consumer) {
+        LocalDateTime archivedUntil = hitArchive.getArchivedUntil();
+        LocalDateTime from = RollupGranularity.MINUTE.ceil(start);
+        LocalDateTime until = RollupGranularity.MINUTE.floor(end);
+        Map<List<String>, Long> archived;
+        List<StatRange> ranges = new ArrayList<>();
+        if (!from.isBefore(until)) {
+            archived = hitArchive.countHits(start, end, uris);
+            if (!end.isBefore(archivedUntil)) {
+                ranges.addAll(hitRollupService.ranges(archivedUntil, end));
+            }
+        } else {
+            archived = start.isBefore(from) ? hitArchive.countHits(start, from.minusSeconds(1), uris) : new HashMap<>();
+            ranges.addAll(hitRollupService.alignedRanges(from, until));
+            if (until.isBefore(archivedUntil)) {
+                hitArchive.countHits(until, end, uris).forEach((key, count) -> archived.merge(key, count, Long::sum));
             } else {
-                stats = hitRepository.findAllWithoutUris(start, end);
+                ranges.addAll(hitRollupService.ranges(until, end));
+            }
+        }
+        statStreamRepository.streamHits(ranges, uris, stat -> {
+            Long extra = archived.remove(List.of(stat.getApp(), stat.getUri()));
+            consumer.accept(extra == null ? stat : new StatDto(stat.getApp(), stat.getUri(), stat.getHits() + extra));
+        });
+        archived.entrySet().stream()
+                .map(e -> new StatDto(e.getKey().get(0), e.getKey().get(1), e.getValue()))
+                .sorted(Comparator.comparing(StatDto::getHits).reversed())
+                .forEach(consumer);
+    }
+
+    private void streamArchivedVisitors(LocalDateTime start, LocalDateTime end, List<String> uris,
+                                        Consumer<StatDto> consumer) {
+        Set<List<String>> uncovered = statStreamRepository.findUncoveredVisitors(start, end, uris);
+        LocalDateTime archivedUntil = hitArchive.getArchivedUntil();
+        if (!uncovered.isEmpty() && !end.isBefore(archivedUntil)) {
+            hitVisitorService.checkRawVisitors(archivedUntil);
+        }
+        statStreamRepository.streamVisitors(start, end, uris, false, consumer);
+        if (uncovered.isEmpty()) {
+            return;
+        }
+        List<String> uncoveredUris = uncovered.stream()
+                .map(key -> key.get(1))
+                .distinct()
+                .collect(Collectors.toList());
+        getArchivedVisitors(start, end, uncoveredUris).stream()
+                .filter(stat -> uncovered.contains(List.of(stat.getApp(), stat.getUri())))
+                .forEach(consumer);
+    }
+
+    private List<StatDto> getArchivedHits(LocalDateTime start, LocalDateTime end, List<String> uris) {
+        LocalDateTime archivedUntil = hitArchive.getArchivedUntil();
+        LocalDateTime from = RollupGranularity.MINUTE.ceil(start);
+        LocalDateTime until = RollupGranularity.MINUTE.floor(end);
+        Map<List<String>, Long> hits;
+        if (!from.isBefore(until)) {
+            hits = hitArchive.countHits(start, end, uris);
+            if (!end.isBefore(archivedUntil)) {
+                merge(hits, hitRollupService.getStat(archivedUntil, end, uris));
             }
         } else {
-            if (unique) {
-                stats = hitRepository.findAllUniqueIpWithUris(uris, start, end);
+            hits = start.isBefore(from) ? hitArchive.countHits(start, from.minusSeconds(1), uris) : new HashMap<>();
+            merge(hits, hitRollupService.getAlignedStat(from, until, uris));
+            if (until.isBefore(archivedUntil)) {
+                hitArchive.countHits(until, end, uris).forEach((key, count) -> hits.merge(key, count, Long::sum));
             } else {
-                stats = hitRepository.findAllWithUris(uris, start, end);
+                merge(hits, hitRollupService.getStat(until, end, uris));
+            }
+        }
+        return hits.entrySet().stream()
+                .map(e -> new StatDto(e.getKey().get(0), e.getKey().get(1), e.getValue()))
+                .sorted(Comparator.comparing(StatDto::getHits).reversed())
+                .collect(Collectors.toList());
+    }
+
+    private void merge(Map<List<String>, Long> hits, List<StatDto> stats) {
+        for (StatDto stat : stats) {
+            hits.merge(List.of(stat.getApp(), stat.getUri()), stat.getHits(), Long::sum);
+        }
+    }
+
+    private List<StatDto> getArchivedVisitors(LocalDateTime start, LocalDateTime end, List<String> uris) {
+        Map<List<String>, LongHashSet> visitors = hitArchive.collectVisitors(start, end, uris);
+        LocalDateTime archivedUntil = hitArchive.getArchivedUntil();
+        if (!end.isBefore(archivedUntil)) {
+            hitVisitorService.checkRawVisitors(archivedUntil);
+            List<HitVisitor> recent = uris == null || uris.isEmpty()
+                    ? hitRepository.findVisitorsWithoutUris(archivedUntil, end)
+                    : hitRepository.findVisitorsWithUris(uris, archivedUntil, end);
+            for (HitVisitor visitor : recent) {
+                visitors.computeIfAbsent(List.of(visitor.getApp(), visitor.getUri()), key -> new LongHashSet())
+                        .add(HyperLogLog.hash(visitor.getIp()));
             }
         }
-        return stats;
+        return visitors.entrySet().stream()
+                .map(e -> new StatDto(e.getKey().get(0), e.getKey().get(1), (long) e.getValue().size()))
+                .sorted(Comparator.comparing(StatDto::getHits).reversed())
+                .collect(Collectors.toList());
     }
 
-    private void checkDate(LocalDateTime startTime, LocalDateTime endTime) {
+    @Override
+    public void checkDate(LocalDateTime startTime, LocalDateTime endTime) {
         if (startTime == null || endTime == null) {
             throw new StartEndRangeException("Ошибка времени начала и конца диапазона");
         }
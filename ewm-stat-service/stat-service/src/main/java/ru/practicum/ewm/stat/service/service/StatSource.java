@@ -0,0 +1,11 @@
+package ru.practicum.ewm.stat.service.service;
+
+enum StatSource {
+    LIVE,
+    SKETCH,
+    VISITORS,
+    ROLLUP,
+    HISTOGRAM,
+    TOP,
+    TRENDING
+}
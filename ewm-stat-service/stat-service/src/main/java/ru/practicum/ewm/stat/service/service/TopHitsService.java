@@ -0,0 +1,119 @@
+package ru.practicum.ewm.stat.service.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import ru.practicum.ewm.stat.dto.TopStatDto;
+import ru.practicum.ewm.stat.service.model.Hit;
+import ru.practicum.ewm.stat.service.model.RollupGranularity;
+import ru.practicum.ewm.stat.service.repository.StatStreamRepository;
+import ru.practicum.ewm.stat.service.sketch.SpaceSaving;
+
+import javax.annotation.PostConstruct;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Collectors;
+
+@Slf4j
+@Component
+public class TopHitsService {
+
+    public static final int MAX_WINDOW_MINUTES = 60;
+
+    private static final RollupGranularity BUCKET = RollupGranularity.MINUTE;
+
+    private final StatStreamRepository statStreamRepository;
+    private final int capacity;
+    private final ConcurrentNavigableMap<LocalDateTime, SpaceSaving<List<String>>> buckets =
+            new ConcurrentSkipListMap<>();
+
+    public TopHitsService(StatStreamRepository statStreamRepository,
+                          @Value("${stat.top.capacity:1000}") int capacity) {
+        this.statStreamRepository = statStreamRepository;
+        this.capacity = capacity;
+    }
+
+    @PostConstruct
+    public void rebuild() {
+        LocalDateTime oldest = oldestBucket();
+        LongAdder restored = new LongAdder();
+        statStreamRepository.streamSecondCounts(oldest, true, count -> {
+            add(count.getApp(), count.getUri(), count.getSecond(), count.getHits(), oldest);
+            restored.add(count.getHits());
+        });
+        log.info("Топ просмотров за {} минут восстановлен из {} хитов", MAX_WINDOW_MINUTES, restored.sum());
+    }
+
+    public void addAll(List<Hit> hits) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            add(hits);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                add(hits);
+            }
+        });
+    }
+
+    public List<TopStatDto> getTop(int n, int windowMinutes) {
+        LocalDateTime from = BUCKET.floor(LocalDateTime.now()).minusMinutes(windowMinutes - 1);
+        Map<List<String>, long[]> merged = new HashMap<>();
+        long missing = 0;
+        for (SpaceSaving<List<String>> bucket : buckets.tailMap(from).values()) {
+            Map<List<String>, long[]> counters;
+            long minCount;
+            synchronized (bucket) {
+                counters = bucket.counters();
+                minCount = bucket.isFull() ? bucket.minCount() : 0;
+            }
+            missing += minCount;
+            counters.forEach((key, counter) -> {
+                long[] estimate = merged.computeIfAbsent(key, k -> new long[2]);
+                estimate[0] += counter[0] - minCount;
+                estimate[1] += counter[0] - counter[1];
+            });
+        }
+        long absent = missing;
+        return merged.entrySet().stream()
+                .map(e -> new TopStatDto(e.getKey().get(0), e.getKey().get(1), absent + e.getValue()[0],
+                        absent + e.getValue()[0] - e.getValue()[1]))
+                .sorted(Comparator.comparing(TopStatDto::getHits).reversed())
+                .limit(n)
+                .collect(Collectors.toList());
+    }
+
+    @Scheduled(fixedDelayString = "${stat.top.eviction-interval-ms:10000}")
+    public void evict() {
+        buckets.headMap(oldestBucket()).clear();
+    }
+
+    private void add(List<Hit> hits) {
+        LocalDateTime oldest = oldestBucket();
+        for (Hit hit : hits) {
+            add(hit.getApp(), hit.getUri(), hit.getTimestamp(), 1, oldest);
+        }
+    }
+
+    private void add(String app, String uri, LocalDateTime timestamp, long hits, LocalDateTime oldest) {
+        LocalDateTime bucketKey = BUCKET.floor(timestamp);
+        if (bucketKey.isBefore(oldest)) {
+            return;
+        }
+        SpaceSaving<List<String>> bucket = buckets.computeIfAbsent(bucketKey, k -> new SpaceSaving<>(capacity));
+        synchronized (bucket) {
+            bucket.offer(List.of(app, uri), hits);
+        }
+    }
+
+    private LocalDateTime oldestBucket() {
+        return BUCKET.floor(LocalDateTime.now()).minusMinutes(MAX_WINDOW_MINUTES - 1);
+    }
+}
@@ -0,0 +1,155 @@
+package ru.practicum.ewm.stat.service.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import ru.practicum.ewm.stat.dto.TrendingStatDto;
+import ru.practicum.ewm.stat.service.model.Hit;
+import ru.practicum.ewm.stat.service.model.TrendingScore;
+import ru.practicum.ewm.stat.service.repository.StatStreamRepository;
+import ru.practicum.ewm.stat.service.repository.TrendingScoreRepository;
+
+import javax.annotation.PostConstruct;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.time.temporal.ChronoUnit;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.DoubleAdder;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.Collectors;
+
+@Slf4j
+@Component
+public class TrendingService {
+
+    private static final double PRUNE_SCORE = 0.01;
+    private static final int REPLAY_HALF_LIVES = 4;
+
+    private final TrendingScoreRepository trendingScoreRepository;
+    private final StatStreamRepository statStreamRepository;
+    private final long halfLifeSeconds;
+    private final double decayPerSecond;
+    private final Map<List<String>, DoubleAdder> scores = new ConcurrentHashMap<>();
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private volatile long landmark;
+
+    public TrendingService(TrendingScoreRepository trendingScoreRepository,
+                           StatStreamRepository statStreamRepository,
+                           @Value("${stat.trending.half-life-minutes:60}") long halfLifeMinutes) {
+        this.trendingScoreRepository = trendingScoreRepository;
+        this.statStreamRepository = statStreamRepository;
+        this.halfLifeSeconds = halfLifeMinutes * 60;
+        this.decayPerSecond = Math.log(2) / halfLifeSeconds;
+        this.landmark = toSecond(LocalDateTime.now());
+    }
+
+    @PostConstruct
+    public void restore() {
+        List<TrendingScore> checkpoint = trendingScoreRepository.findAll();
+        LocalDateTime watermark = trendingScoreRepository.findWatermark()
+                .orElseGet(() -> LocalDateTime.now().minusSeconds(halfLifeSeconds * REPLAY_HALF_LIVES));
+        double factor = decay(Math.min(toSecond(watermark), landmark), landmark);
+        for (TrendingScore score : checkpoint) {
+            scores.computeIfAbsent(List.of(score.getApp(), score.getUri()), key -> new DoubleAdder())
+                    .add(score.getScore() * factor);
+        }
+        long now = toSecond(LocalDateTime.now());
+        LongAdder replayed = new LongAdder();
+        statStreamRepository.streamSecondCounts(watermark, false, count -> {
+            add(count.getApp(), count.getUri(), toSecond(count.getSecond()), count.getHits(), now);
+            replayed.add(count.getHits());
+        });
+        log.info("Рейтинг трендов восстановлен из {} сохранённых оценок и {} хитов после {}",
+                checkpoint.size(), replayed.sum(), watermark);
+    }
+
+    public void addAll(List<Hit> hits) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            add(hits);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                add(hits);
+            }
+        });
+    }
+
+    public List<TrendingStatDto> getTrending(String prefix, int n) {
+        List<TrendingStatDto> trending;
+        lock.readLock().lock();
+        try {
+            double factor = decay(landmark, toSecond(LocalDateTime.now()));
+            trending = scores.entrySet().stream()
+                    .filter(e -> prefix == null || e.getKey().get(1).startsWith(prefix))
+                    .map(e -> new TrendingStatDto(e.getKey().get(0), e.getKey().get(1), e.getValue().sum() * factor))
+                    .collect(Collectors.toList());
+        } finally {
+            lock.readLock().unlock();
+        }
+        return trending.stream()
+                .sorted(Comparator.comparing(TrendingStatDto::getScore).reversed())
+                .limit(n)
+                .collect(Collectors.toList());
+    }
+
+    @Transactional
+    @Scheduled(fixedDelayString = "${stat.trending.checkpoint-interval-ms:60000}")
+    public void checkpoint() {
+        List<TrendingScore> snapshot = new ArrayList<>();
+        LocalDateTime now;
+        lock.writeLock().lock();
+        try {
+            now = LocalDateTime.now().truncatedTo(ChronoUnit.MICROS);
+            double factor = decay(landmark, toSecond(now));
+            Iterator<Map.Entry<List<String>, DoubleAdder>> entries = scores.entrySet().iterator();
+            while (entries.hasNext()) {
+                Map.Entry<List<String>, DoubleAdder> entry = entries.next();
+                double score = entry.getValue().sumThenReset() * factor;
+                if (score < PRUNE_SCORE) {
+                    entries.remove();
+                    continue;
+                }
+                entry.getValue().add(score);
+                snapshot.add(new TrendingScore(entry.getKey().get(0), entry.getKey().get(1), score, now));
+            }
+            landmark = toSecond(now);
+        } finally {
+            lock.writeLock().unlock();
+        }
+        trendingScoreRepository.replaceAll(snapshot, now);
+    }
+
+    private void add(List<Hit> hits) {
+        long now = toSecond(LocalDateTime.now());
+        for (Hit hit : hits) {
+            add(hit.getApp(), hit.getUri(), toSecond(hit.getTimestamp()), 1, now);
+        }
+    }
+
+    private void add(String app, String uri, long second, long hits, long now) {
+        lock.readLock().lock();
+        try {
+            double weight = hits * decay(Math.min(second, now), landmark);
+            scores.computeIfAbsent(List.of(app, uri), key -> new DoubleAdder()).add(weight);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private double decay(long from, long to) {
+        return Math.exp(-decayPerSecond * (to - from));
+    }
+
+    private static long toSecond(LocalDateTime time) {
+        return time.toEpochSecond(ZoneOffset.UTC);
+    }
+}
@@ -0,0 +1,71 @@
+package ru.practicum.ewm.stat.service.sketch;
+
+public class LongHashSet {
+
+    private static final int MIN_CAPACITY = 4;
+
+    private long[] table = new long[MIN_CAPACITY];
+    private boolean containsZero;
+    private int size;
+
+    public boolean add(long value) {
+        if (value == 0) {
+            if (containsZero) {
+                return false;
+            }
+            containsZero = true;
+            size++;
+            return true;
+        }
+        if ((size + 1) * 4 > table.length * 3) {
+            resize(table.length * 2);
+        }
+        if (!insert(table, value)) {
+            return false;
+        }
+        size++;
+        return true;
+    }
+
+    public void addAll(LongHashSet other) {
+        if (other.containsZero) {
+            add(0);
+        }
+        for (long value : other.table) {
+            if (value != 0) {
+                add(value);
+            }
+        }
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public long sizeInBytes() {
+        return (long) table.length * Long.BYTES;
+    }
+
+    private void resize(int capacity) {
+        long[] resized = new long[capacity];
+        for (long value : table) {
+            if (value != 0) {
+                insert(resized, value);
+            }
+        }
+        table = resized;
+    }
+
+    private static boolean insert(long[] table, long value) {
+        int mask = table.length - 1;
+        int index = (int) (value ^ (value >>> 32)) & mask;
+        while (table[index] != 0) {
+            if (table[index] == value) {
+                return false;
+            }
+            index = (index + 1) & mask;
+        }
+        table[index] = value;
+        return true;
+    }
+}
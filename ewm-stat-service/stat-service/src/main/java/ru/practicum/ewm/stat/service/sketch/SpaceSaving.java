@@ -0,0 +1,80 @@
+package ru.practicum.ewm.stat.service.sketch;
+
+import java.util.*;
+
+public class SpaceSaving<T> {
+
+    private final int capacity;
+    private final Map<T, Counter> counters = new HashMap<>();
+    private final TreeMap<Long, Set<T>> byCount = new TreeMap<>();
+
+    public SpaceSaving(int capacity) {
+        this.capacity = capacity;
+    }
+
+    public void offer(T item) {
+        offer(item, 1);
+    }
+
+    public void offer(T item, long increment) {
+        Counter counter = counters.get(item);
+        if (counter != null) {
+            move(item, counter, counter.count + increment);
+            return;
+        }
+        if (counters.size() < capacity) {
+            counter = new Counter(0, 0);
+            counters.put(item, counter);
+            move(item, counter, increment);
+            return;
+        }
+        Map.Entry<Long, Set<T>> min = byCount.firstEntry();
+        T evicted = min.getValue().iterator().next();
+        Counter replaced = counters.remove(evicted);
+        detach(evicted, replaced.count);
+        counter = new Counter(0, replaced.count);
+        counters.put(item, counter);
+        move(item, counter, replaced.count + increment);
+    }
+
+    public boolean isFull() {
+        return counters.size() >= capacity;
+    }
+
+    public long minCount() {
+        return byCount.isEmpty() ? 0 : byCount.firstKey();
+    }
+
+    public Map<T, long[]> counters() {
+        Map<T, long[]> result = new HashMap<>(counters.size());
+        counters.forEach((item, counter) -> result.put(item, new long[]{counter.count, counter.error}));
+        return result;
+    }
+
+    private void move(T item, Counter counter, long count) {
+        if (counter.count > 0) {
+            detach(item, counter.count);
+        }
+        counter.count = count;
+        byCount.computeIfAbsent(count, c -> new LinkedHashSet<>()).add(item);
+    }
+
+    private void detach(T item, long count) {
+        Set<T> items = byCount.get(count);
+        items.remove(item);
+        if (items.isEmpty()) {
+            byCount.remove(count);
+        }
+    }
+
+    private static class Counter {
+
+        private long count;
+        private final long error;
+
+        private Counter(long count, long error) {
+            this.count = count;
+            this.error = error;
+        }
+    }
+}
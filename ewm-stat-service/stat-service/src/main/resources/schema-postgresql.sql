@@ -0,0 +1,15 @@
+CREATE TABLE IF NOT EXISTS hits
+(
+    id      BIGINT GENERATED BY DEFAULT AS IDENTITY NOT NULL,
+    created TIMESTAMP WITHOUT TIME ZONE             NOT NULL,
+    app_id  INTEGER                                 NOT NULL,
+    uri_id  INTEGER                                 NOT NULL,
+    ip      BYTEA                                   NOT NULL,
+    CONSTRAINT pk_hits PRIMARY KEY (id, created)
+) PARTITION BY RANGE (created);
+
+CREATE TABLE IF NOT EXISTS hits_default PARTITION OF hits DEFAULT;
+
+CREATE INDEX IF NOT EXISTS idx_hits_created ON hits (created);
+
+CREATE INDEX IF NOT EXISTS idx_hits_uri_created ON hits (uri_id, created);
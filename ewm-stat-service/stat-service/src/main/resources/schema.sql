@@ -1,11 +1,80 @@
-DROP TABLE IF EXISTS hits CASCADE;
+CREATE TABLE IF NOT EXISTS hit_apps
+(
+    id   INTEGER GENERATED BY DEFAULT AS IDENTITY NOT NULL,
+    name VARCHAR(50)                              NOT NULL,
+    CONSTRAINT pk_hit_apps PRIMARY KEY (id),
+    CONSTRAINT uq_hit_apps_name UNIQUE (name)
+);
+
+CREATE TABLE IF NOT EXISTS hit_uris
+(
+    id   INTEGER GENERATED BY DEFAULT AS IDENTITY NOT NULL,
+    name VARCHAR(50)                              NOT NULL,
+    CONSTRAINT pk_hit_uris PRIMARY KEY (id),
+    CONSTRAINT uq_hit_uris_name UNIQUE (name)
+);
+
+CREATE TABLE IF NOT EXISTS hit_rollups
+(
+    granularity VARCHAR(10)                 NOT NULL,
+    bucket      TIMESTAMP WITHOUT TIME ZONE NOT NULL,
+    app         VARCHAR(50)                 NOT NULL,
+    uri         VARCHAR(50)                 NOT NULL,
+    hits        BIGINT                      NOT NULL,
+    CONSTRAINT pk_hit_rollups PRIMARY KEY (granularity, uri, app, bucket)
+);
+
+CREATE INDEX IF NOT EXISTS idx_hit_rollups_bucket ON hit_rollups (granularity, bucket);
+
+CREATE TABLE IF NOT EXISTS hit_sketches
+(
+    app    VARCHAR(50)                 NOT NULL,
+    uri    VARCHAR(50)                 NOT NULL,
+    bucket TIMESTAMP WITHOUT TIME ZONE NOT NULL,
+    sketch BYTEA                       NOT NULL,
+    CONSTRAINT pk_hit_sketches PRIMARY KEY (uri, app, bucket)
+);
+
+CREATE INDEX IF NOT EXISTS idx_hit_sketches_bucket ON hit_sketches (bucket);
+
+CREATE TABLE IF NOT EXISTS hit_visitors
+(
+    app        VARCHAR(50)                 NOT NULL,
+    uri        VARCHAR(50)                 NOT NULL,
+    ip         VARCHAR(50)                 NOT NULL,
+    first_seen TIMESTAMP WITHOUT TIME ZONE NOT NULL,
+    CONSTRAINT pk_hit_visitors PRIMARY KEY (uri, app, ip)
+);
+
+CREATE TABLE IF NOT EXISTS uri_visitors
+(
+    app       VARCHAR(50)                 NOT NULL,
+    uri       VARCHAR(50)                 NOT NULL,
+    visitors  BIGINT                      NOT NULL,
+    first_hit TIMESTAMP WITHOUT TIME ZONE NOT NULL,
+    last_hit  TIMESTAMP WITHOUT TIME ZONE NOT NULL,
+    CONSTRAINT pk_uri_visitors PRIMARY KEY (uri, app)
+);
+
+CREATE TABLE IF NOT EXISTS trending_scores
+(
+    app        VARCHAR(50)                 NOT NULL,
+    uri        VARCHAR(50)                 NOT NULL,
+    score      DOUBLE PRECISION            NOT NULL,
+    decayed_at TIMESTAMP WITHOUT TIME ZONE NOT NULL,
+    CONSTRAINT pk_trending_scores PRIMARY KEY (uri, app)
+);
+
+CREATE TABLE IF NOT EXISTS trending_watermark
+(
+    id        INTEGER                     NOT NULL,
+    watermark TIMESTAMP WITHOUT TIME ZONE NOT NULL,
+    CONSTRAINT pk_trending_watermark PRIMARY KEY (id)
+);
 
-CREATE TABLE IF NOT EXISTS hits
+CREATE TABLE IF NOT EXISTS hit_archive_segments
 (
-    id      BIGINT GENERATED BY DEFAULT AS IDENTITY NOT NULL,
-    app     VARCHAR(50)                             NOT NULL,
-    uri     VARCHAR(50)                             NOT NULL,
-    ip      VARCHAR(50)                             NOT NULL,
-    created TIMESTAMP WITHOUT TIME ZONE             NOT NULL,
-    CONSTRAINT pk_hits PRIMARY KEY (id)
-);
\ No newline at end of file
+    name           VARCHAR(100)                NOT NULL,
+    archived_until TIMESTAMP WITHOUT TIME ZONE NOT NULL,
+    CONSTRAINT pk_hit_archive_segments PRIMARY KEY (name)
+);
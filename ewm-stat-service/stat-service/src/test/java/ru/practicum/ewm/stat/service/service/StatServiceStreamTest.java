@@ -0,0 +1,150 @@
+package ru.practicum.ewm.stat.service.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+import org.springframework.test.context.ActiveProfiles;
+import ru.practicum.ewm.stat.dto.HitDto;
+import ru.practicum.ewm.stat.dto.StatDto;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.NONE, properties = {"stat.stream.fetch-size=20", "spring.jpa.show-sql=false"})
+@ActiveProfiles("test")
+class StatServiceStreamTest {
+
+    private static final int URIS = 200;
+    private static final AtomicLong FETCHED_ROWS = new AtomicLong();
+
+    private static final LocalDateTime BASE = LocalDateTime.now().truncatedTo(ChronoUnit.DAYS).minusDays(3).plusHours(10);
+    private static final LocalDateTime START = BASE.minusSeconds(30);
+    private static final LocalDateTime END = BASE.plusHours(4).plusSeconds(30);
+
+    @Autowired
+    private StatService statService;
+
+    @BeforeEach
+    void setUp() {
+        if (!statService.getStat(START, END, null, false, false).isEmpty()) {
+            return;
+        }
+        List<HitDto> hits = new ArrayList<>();
+        for (int i = 0; i < URIS; i++) {
+            for (int j = 0; j <= i % 7; j++) {
+                hits.add(new HitDto(0, "ewm-main-service", "/events/" + i, "10.0.0." + j,
+                        BASE.plusMinutes(i).plusSeconds(j * 13L)));
+            }
+        }
+        hits.add(new HitDto(0, "ewm-main-service", "/events/0", "10.0.1.1", START.plusSeconds(5)));
+        hits.add(new HitDto(0, "ewm-main-service", "/events/1", "10.0.1.1", END.minusSeconds(5)));
+        statService.createHits(hits);
+    }
+
+    @Test
+    void streamStatHandsRowsToConsumerBeforeResultIsRead() {
+        assertStreamed(false);
+    }
+
+    @Test
+    void streamUniqueStatHandsRowsToConsumerBeforeResultIsRead() {
+        assertStreamed(true);
+    }
+
+    private void assertStreamed(boolean unique) {
+        List<StatDto> expected = statService.getStat(START, END, null, unique, false);
+        List<StatDto> streamed = new ArrayList<>();
+        long[] fetchedAtFirstRow = new long[1];
+        FETCHED_ROWS.set(0);
+
+        statService.streamStat(START, END, null, unique, stat -> {
+            if (streamed.isEmpty()) {
+                fetchedAtFirstRow[0] = FETCHED_ROWS.get();
+            }
+            streamed.add(stat);
+        });
+
+        assertEquals(URIS, streamed.size());
+        assertEquals(1, fetchedAtFirstRow[0]);
+        assertTrue(FETCHED_ROWS.get() >= URIS);
+        for (int i = 1; i < streamed.size(); i++) {
+            assertTrue(streamed.get(i - 1).getHits() >= streamed.get(i).getHits());
+        }
+        Comparator<StatDto> order = Comparator.comparing(StatDto::getUri);
+        streamed.sort(order);
+        expected.sort(order);
+        assertEquals(expected, streamed);
+    }
+
+    @TestConfiguration
+    static class RowCountingConfig {
+
+        @Bean
+        static BeanPostProcessor rowCountingDataSource() {
+            return new BeanPostProcessor() {
+                @Override
+                public Object postProcessAfterInitialization(Object bean, String beanName) {
+                    if (!"dataSource".equals(beanName)) {
+                        return bean;
+                    }
+                    return new DelegatingDataSource((DataSource) bean) {
+                        @Override
+                        public Connection getConnection() throws java.sql.SQLException {
+                            return countingConnection(super.getConnection());
+                        }
+                    };
+                }
+            };
+        }
+
+        private static Connection countingConnection(Connection connection) {
+            return proxy(Connection.class, connection, (method, result) -> result instanceof PreparedStatement
+                    ? proxy(PreparedStatement.class, result, (statementMethod, statementResult) ->
+                    statementResult instanceof ResultSet ? countingResultSet((ResultSet) statementResult)
+                            : statementResult)
+                    : result);
+        }
+
+        private static ResultSet countingResultSet(ResultSet resultSet) {
+            return proxy(ResultSet.class, resultSet, (method, result) -> {
+                if ("next".equals(method.getName()) && Boolean.TRUE.equals(result)) {
+                    FETCHED_ROWS.incrementAndGet();
+                }
+                return result;
+            });
+        }
+
+        @SuppressWarnings("unchecked")
+        private static <T> T proxy(Class<T> type, Object target, ResultMapper mapper) {
+            return (T) Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type}, (proxy, method, args) -> {
+                try {
+                    return mapper.map(method, method.invoke(target, args));
+                } catch (InvocationTargetException e) {
+                    throw e.getCause();
+                }
+            });
+        }
+
+        private interface ResultMapper {
+            Object map(java.lang.reflect.Method method, Object result);
+        }
+    }
+}